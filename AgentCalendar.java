@@ -0,0 +1,98 @@
+import java.io.PrintStream;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+
+/*
+ * Agent calendar view of the meeting scheduling problem, channelled to the meeting[]
+ * timeslot variables of Solve and Optimize.
+ *
+ * cal[a][t] is the meeting agent a attends at timeslot t, or -1 if none. For each agent
+ *     - every one of its meetings is in its calendar exactly once, and every other
+ *       timeslot is -1 (global cardinality),
+ *     - cal[a][meeting[m]] = m for each of its meetings m (element), so the calendar and
+ *       the timeslot of a meeting follow each other both ways,
+ *     - two meetings m1, m2 cannot be delta timeslots apart if delta <= distance(m1, m2):
+ *       a binary table forbidding these pairs is posted on cal[a][t] and cal[a][t + delta]
+ *       for every timeslot t and delta from 1 to the largest distance between its meetings.
+ * This model needs agents x timeslots x distance table constraints, so it is only added
+ * on request (-calendar), and SolveDumb solves with it alone.
+ */
+
+public class AgentCalendar {
+
+  static boolean enabled = false; // add the calendar view in Solve and Optimize
+
+  Instance instance;
+  ConflictGraph graph;
+  int horizon; // last timeslot of the calendars
+  IntVar[][] cal; // cal[a][t]: meeting of agent a at timeslot t, -1 if none; null for agents with no meetings
+
+  AgentCalendar(Solver solver, IntVar[] meeting, Instance instance, ConflictGraph graph, int horizon) {
+      this.instance = instance;
+      this.graph = graph;
+      this.horizon = horizon;
+      cal = new IntVar[instance.mAgents][];
+      for (int a = 0; a < instance.mAgents; a++) {
+          int[] meetings = graph.meetingsOf(a);
+          int k = meetings.length;
+          if (k == 0) continue;
+
+          int[] values = new int[k + 1]; // -1 and the agent's meetings, in increasing order
+          values[0] = -1;
+          System.arraycopy(meetings, 0, values, 1, k);
+          cal[a] = new IntVar[horizon + 1];
+          for (int t = 0; t <= horizon; t++) {
+              cal[a][t] = VF.enumerated("cal " + a + " " + t, values, solver);
+          }
+
+          /* each meeting exactly once, the rest of the timeslots free */
+          IntVar[] occurrences = new IntVar[k + 1];
+          occurrences[0] = VF.fixed(horizon + 1 - k, solver);
+          for (int i = 1; i <= k; i++) occurrences[i] = VF.fixed(1, solver);
+          solver.post(ICF.global_cardinality(cal[a], values, occurrences, true));
+
+          /* channelling: the meeting is in the calendar at its timeslot */
+          for (int m : meetings) {
+              solver.post(ICF.element(VF.fixed(m, solver), cal[a], meeting[m], 0));
+          }
+
+          /* travel: forbidden pairs of meetings delta timeslots apart */
+          int maxDistance = 0;
+          for (int i = 0; i < k; i++) {
+              for (int j = i + 1; j < k; j++) {
+                  maxDistance = Math.max(maxDistance, Travel.distance(instance, meetings[i], meetings[j]));
+              }
+          }
+          for (int delta = 1; delta <= Math.min(maxDistance, horizon); delta++) {
+              Tuples forbidden = new Tuples(false);
+              for (int i = 0; i < k; i++) {
+                  for (int j = i + 1; j < k; j++) {
+                      if (Travel.distance(instance, meetings[i], meetings[j]) >= delta) {
+                          forbidden.add(meetings[i], meetings[j]);
+                          forbidden.add(meetings[j], meetings[i]);
+                      }
+                  }
+              }
+              for (int t = 0; t + delta <= horizon; t++) {
+                  solver.post(ICF.table(cal[a][t], cal[a][t + delta], forbidden, "AC3bit+rm"));
+              }
+          }
+      }
+  }
+
+  // the calendar of every agent, one line each: the meeting at each timeslot, or - if none
+  void print(PrintStream out) {
+      for (int a = 0; a < cal.length; a++) {
+          if (cal[a] == null) continue;
+          StringBuilder line = new StringBuilder("agent " + a + ": |");
+          for (IntVar v : cal[a]) {
+              line.append(v.getValue() == -1 ? "-" : "" + v.getValue()).append('|');
+          }
+          out.println(line);
+      }
+  }
+}
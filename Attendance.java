@@ -0,0 +1,83 @@
+import java.util.Arrays;
+
+/*
+ * Bit-packed attendance matrix, with both views the models need: the meetings of each
+ * agent (a row of the matrix) and the attendees of each meeting (a column), each one a
+ * long[] bitset. This takes 2 bits per (agent, meeting) pair instead of the 32 bits of
+ * an int[mAgents][nMeetings] holding 0 or 1.
+ */
+
+public class Attendance {
+
+  int nMeetings;
+  int mAgents;
+  long[][] byAgent; // byAgent[a]: bit m is set iff agent a attends meeting m
+  long[][] byMeeting; // byMeeting[m]: bit a is set iff agent a attends meeting m
+
+  Attendance(int mAgents, int nMeetings) {
+      this.mAgents = mAgents;
+      this.nMeetings = nMeetings;
+      byAgent = new long[mAgents][words(nMeetings)];
+      byMeeting = new long[nMeetings][words(mAgents)];
+  }
+
+  static int words(int bits) {
+      return (bits + 63) >>> 6;
+  }
+
+  boolean get(int a, int m) {
+      return (byAgent[a][m >>> 6] & (1L << m)) != 0;
+  }
+
+  void set(int a, int m, boolean attends) {
+      if (attends) {
+          byAgent[a][m >>> 6] |= 1L << m;
+          byMeeting[m][a >>> 6] |= 1L << a;
+      }
+      else {
+          byAgent[a][m >>> 6] &= ~(1L << m);
+          byMeeting[m][a >>> 6] &= ~(1L << a);
+      }
+  }
+
+  // all meetings agent a attends, in increasing order
+  int[] meetingsOf(int a) {
+      return members(byAgent[a]);
+  }
+
+  // all agents attending meeting m, in increasing order
+  int[] agentsOf(int m) {
+      return members(byMeeting[m]);
+  }
+
+  long[] attendees(int m) {
+      return byMeeting[m];
+  }
+
+  // add a meeting nobody attends, returns its number
+  int addMeeting() {
+      int m = nMeetings++;
+      if (byMeeting.length == m) {
+          byMeeting = Arrays.copyOf(byMeeting, Math.max(4, 2 * m));
+      }
+      byMeeting[m] = new long[words(mAgents)];
+      for (int a = 0; a < mAgents; a++) {
+          if (byAgent[a].length < words(nMeetings)) byAgent[a] = Arrays.copyOf(byAgent[a], words(nMeetings));
+      }
+      return m;
+  }
+
+  // the set bits of a bitset, in increasing order
+  static int[] members(long[] bits) {
+      int k = 0;
+      for (long w : bits) k += Long.bitCount(w);
+      int[] members = new int[k];
+      k = 0;
+      for (int w = 0; w < bits.length; w++) {
+          for (long b = bits[w]; b != 0; b &= b - 1) {
+              members[k++] = (w << 6) + Long.numberOfTrailingZeros(b);
+          }
+      }
+      return members;
+  }
+}
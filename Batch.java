@@ -0,0 +1,204 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.chocosolver.solver.*;
+import org.chocosolver.solver.search.loop.monitors.SMF;
+
+/*
+ * Solves a whole directory of instances inside one JVM, on a pool of worker threads.
+ *
+ *     java Batch rProblems rSolutions 20 -threads 4
+ *     java Batch "rProblems/40-*.txt" rSolutions -solve
+ *
+ * Each solution is written to outDir/<instance file name> in the same format as
+ * "java Optimize instance > solution" (or Solve with -solve), and one summary line
+ * per instance (nodes, time, best objective, status, valid) is written to a CSV file, or to
+ * a JSON lines file if the summary file name ends with .jsonl.
+ * Every schedule found is checked by Validator before it is reported. With -trace the
+ * search telemetry of each instance (see Telemetry) is written to outDir/<instance>.trace.jsonl.
+ * While Optimize runs, its solution file always holds the best schedule found so far
+ * (see SolutionStream), so an interrupted batch keeps what it has found. With -cache dir
+ * every run starts from, and adds to, the results of earlier runs (see Cache).
+ */
+
+public class Batch {
+
+  List<Path> instances; // instance files to solve, in name order
+  File outDir; // where the solutions are written
+  int timeLimit = -1; // time limit per instance in seconds, -1 if none
+  int threads = Runtime.getRuntime().availableProcessors(); // size of the worker pool
+  boolean solveOnly = false; // run Solve instead of Optimize
+  Cache cache; // cache of results shared by all runs, null for none
+  boolean trace = false; // write the search telemetry of each instance next to its solution
+  String summary; // summary file name
+
+  /*
+   * One line of the summary: what happened when solving one instance
+   */
+  static class Result {
+      String instance;
+      String status; // optimal, feasible, infeasible, unknown or error
+      int objective = -1; // best number of timeslots found (Optimize), -1 if none
+      String valid = "-"; // true or false once the schedule has been validated, - if there is none
+      long nodes;
+      float cpu; // search time reported by the solver, in seconds
+      long wall; // wall time including parsing and model construction, in milliseconds
+
+      String toCSV() {
+          return instance + "," + status + "," + objective + "," + valid + "," + nodes + "," + cpu + "," + wall;
+      }
+
+      String toJSON() {
+          return "{\"instance\":\"" + instance + "\",\"status\":\"" + status + "\",\"objective\":" + objective
+               + ",\"valid\":" + (valid.equals("-") ? "null" : valid) + ",\"nodes\":" + nodes + ",\"cpu\":" + cpu + ",\"wall\":" + wall + "}";
+      }
+  }
+
+  Batch(String pattern, String outDir) throws IOException {
+      this.instances = listInstances(pattern);
+      this.outDir = new File(outDir);
+      this.summary = new File(outDir, "summary.csv").getPath();
+  }
+
+  // all files of a directory, or all files matching a glob such as rProblems/40-*.txt
+  static List<Path> listInstances(String pattern) throws IOException {
+      Path path = Paths.get(pattern);
+      Path dir = path;
+      String glob = "*";
+      if (!Files.isDirectory(path)) {
+          dir = path.getParent() == null ? Paths.get(".") : path.getParent();
+          glob = path.getFileName().toString();
+      }
+      List<Path> files = new ArrayList<Path>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+          for (Path p : stream) {
+              if (Files.isRegularFile(p)) files.add(p);
+          }
+      }
+      Collections.sort(files);
+      return files;
+  }
+
+  void run() throws Exception {
+      outDir.mkdirs();
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      List<Future<Result>> results = new ArrayList<Future<Result>>();
+      for (final Path instance : instances) {
+          results.add(pool.submit(() -> solve(instance)));
+      }
+      try (PrintWriter out = new PrintWriter(summary)) {
+          boolean json = summary.endsWith(".jsonl");
+          if (!json) out.println("instance,status,objective,valid,nodes,cpu,wall");
+          for (Future<Result> f : results) {
+              Result r = f.get();
+              out.println(json ? r.toJSON() : r.toCSV());
+              System.out.println(r.toCSV());
+          }
+      }
+      finally {
+          pool.shutdown();
+      }
+  }
+
+  // the telemetry file of an instance: outDir/<instance file name>.trace.jsonl
+  String traceFile(Path file) {
+      return new File(outDir, file.getFileName() + ".trace.jsonl").getPath();
+  }
+
+  // solve one instance and write its solution file
+  Result solve(Path file) {
+      Result r = new Result();
+      r.instance = file.toString();
+      long start = System.currentTimeMillis();
+      File solution = new File(outDir, file.getFileName().toString());
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      try (PrintStream out = new PrintStream(buffer)) {
+          Instance instance = InstanceReader.read(file.toString());
+          Solver solver;
+          if (solveOnly) {
+              Solve msp = new Solve(instance);
+              msp.cache = cache;
+              if (timeLimit != -1) SMF.limitTime(msp.solver, timeLimit * 1000);
+              if (trace) new Telemetry(msp.solver, null, traceFile(file));
+              if (msp.solve()) {
+                  msp.result(out);
+                  r.status = "feasible";
+                  r.valid = "" + new Validator(instance, msp.graph).check(msp.schedule());
+              }
+              else {
+                  out.println(false);
+                  r.status = msp.solver.hasReachedLimit() ? "unknown" : "infeasible";
+              }
+              msp.stats(out);
+              solver = msp.solver;
+          }
+          else {
+              Optimize msp = new Optimize(instance, timeLimit, cache);
+              if (trace) new Telemetry(msp.solver, msp.timeslots, traceFile(file));
+              // keep the best schedule so far in the solution file, in case the run is interrupted
+              SolutionStream.to(solution.getPath(), msp.solver, msp.meeting, msp.timeslots);
+              msp.search();
+              msp.result(out);
+              msp.stats(out);
+              solver = msp.solver;
+              boolean found = solver.getMeasures().getSolutionCount() > 0;
+              if (!found && !solver.hasReachedLimit()) {
+                  r.status = "infeasible";
+              }
+              else {
+                  // without a solution in time, the greedy schedule is the answer
+                  r.status = found && !solver.hasReachedLimit() ? "optimal" : "feasible";
+                  r.objective = msp.objective();
+                  Validator validator = new Validator(instance, msp.graph);
+                  validator.window = false; // Optimize may use more timeslots than the instance allows
+                  r.valid = "" + validator.check(msp.schedule());
+              }
+          }
+          r.nodes = solver.getMeasures().getNodeCount();
+          r.cpu = solver.getMeasures().getTimeCount();
+          out.flush();
+          SolutionStream.writeAtomically(solution.toPath(), buffer.toString());
+      }
+      catch (Exception e) {
+          r.status = "error";
+          System.err.println(file + ": " + e);
+      }
+      r.wall = System.currentTimeMillis() - start;
+      return r;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+        System.out.println("usage: java Batch <directory|glob> <outDir> [timeLimit] [-threads k] [-solve] [-summary file] [-trace] [-cache dir] [-nosym] [-nopresolve] [-search v] [-value s] [-restarts r]");
+        return;
+    }
+    Batch batch = new Batch(args[0], args[1]);
+    for (int i = 2; i < args.length; i++) {
+        if (args[i].equals("-threads")) batch.threads = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-solve")) batch.solveOnly = true;
+        else if (args[i].equals("-summary")) batch.summary = args[++i];
+        else if (args[i].equals("-trace")) batch.trace = true;
+        else if (args[i].equals("-cache")) batch.cache = new Cache(args[++i]);
+        else if (args[i].equals("-nosym")) Symmetry.enabled = false;
+        else if (args[i].equals("-nopresolve")) Presolve.enabled = false;
+        else if (args[i].equals("-search")) Strategies.select().setVariables(args[++i]);
+        else if (args[i].equals("-value")) Strategies.select().setValues(args[++i]);
+        else if (args[i].equals("-restarts")) Strategies.select().setRestarts(args[++i]);
+        else batch.timeLimit = Integer.parseInt(args[i]);
+    }
+    batch.run();
+  }
+}
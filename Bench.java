@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.chocosolver.solver.search.loop.monitors.SMF;
+
+/*
+ * Repeatable performance measurements, separately for each phase:
+ *     parse            InstanceReader.read
+ *     solve-model      the Solve constructor (model building only)
+ *     optimize-model   the Optimize constructor, i.e. optimize(): greedy bounds and model
+ *     solve-search     Solve.solve() (findSolution) on a model built beforehand
+ *     optimize-search  Optimize.search() (findOptimalSolution) on a model built beforehand
+ *
+ *     java Bench
+ *     java Bench rProblems -warmup 5 -iterations 10 -limit 2 -out bench.csv
+ *     java Bench -only parse,solve-model -out bench.jsonl -baseline old.csv
+ *     java Bench -nosym -out nosym.csv
+ *     java Bench rProblems -search conflicts -value earliest -restarts luby -out conflicts.csv
+ *
+ * Every benchmark is run on every instance, first warmup times (not measured, so the JIT
+ * has compiled the code being timed) then iterations times. The instances are grouped by
+ * size class, i.e. "nMeetings-mAgents" (10-5, 20-10, 40-10, 100-50, ...), and for each
+ * benchmark and size class one line is written with the mean and minimum time per
+ * operation in milliseconds, its standard deviation, and the mean number of search nodes.
+ * The output is a CSV file, or a JSON lines file if its name ends with .jsonl.
+ *
+ * Searches are stopped after limit seconds, so that the hard instances can be measured
+ * at all; their times are then those of a time limited search.
+ *
+ * With -baseline, the results are compared to the CSV file of an earlier run, and every
+ * benchmark whose mean got slower by more than -tolerance percent is reported as a
+ * regression (the exit status is then 1). -nosym measures Solve and Optimize without
+ * symmetry breaking (see Symmetry), -nopresolve without presolve (see Presolve), -search,
+ * -value and -restarts with another search strategy (see Strategies), e.g. to find the
+ * fastest one for each size class.
+ */
+
+public class Bench {
+
+  static final String[] BENCHMARKS = {"parse", "solve-model", "optimize-model", "solve-search", "optimize-search"};
+
+  List<String> dirs = new ArrayList<String>(); // directories of instance files
+  List<String> only = Arrays.asList(BENCHMARKS); // benchmarks to run
+  int warmup = 3; // unmeasured runs per benchmark and instance
+  int iterations = 5; // measured runs per benchmark and instance
+  int limit = 1; // time limit of each search in seconds
+  String out; // results file, null for standard output only
+
+  /*
+   * Times of one benchmark over all the instances of one size class
+   */
+  static class Result {
+      String benchmark;
+      String sizeClass;
+      int instances = 0;
+      List<Double> times = new ArrayList<Double>(); // milliseconds per operation
+      long nodes = 0; // search nodes over all measured operations
+
+      double mean() {
+          double sum = 0;
+          for (double t : times) sum += t;
+          return sum / times.size();
+      }
+
+      double min() {
+          double min = Double.MAX_VALUE;
+          for (double t : times) min = Math.min(min, t);
+          return min;
+      }
+
+      double stddev() {
+          double mean = mean();
+          double sum = 0;
+          for (double t : times) sum += (t - mean) * (t - mean);
+          return Math.sqrt(sum / times.size());
+      }
+
+      long meanNodes() {
+          return nodes / times.size();
+      }
+
+      String toCSV() {
+          return benchmark + "," + sizeClass + "," + instances + "," + times.size() + ","
+               + String.format(Locale.ROOT, "%.4f,%.4f,%.4f", mean(), min(), stddev()) + "," + meanNodes();
+      }
+
+      String toJSON() {
+          return "{\"benchmark\":\"" + benchmark + "\",\"class\":\"" + sizeClass + "\",\"instances\":" + instances
+               + ",\"runs\":" + times.size() + String.format(Locale.ROOT, ",\"mean\":%.4f,\"min\":%.4f,\"stddev\":%.4f", mean(), min(), stddev())
+               + ",\"nodes\":" + meanNodes() + "}";
+      }
+  }
+
+  // results in benchmark order, then size class order
+  Map<String, Result> results = new TreeMap<String, Result>();
+
+  // the instance files of the directories, skipping files that are not instances (sources, solutions)
+  Map<Path, Instance> instances() throws IOException {
+      Map<Path, Instance> instances = new TreeMap<Path, Instance>();
+      for (String dir : dirs) {
+          for (Path file : Batch.listInstances(dir)) {
+              try {
+                  Instance instance = InstanceReader.read(file.toString());
+                  if (instance.nMeetings > 0) instances.put(file, instance);
+              }
+              catch (IOException e) {
+                  // not an instance
+              }
+          }
+      }
+      return instances;
+  }
+
+  void run() throws IOException {
+      Map<Path, Instance> instances = instances();
+      for (String benchmark : only) {
+          for (Map.Entry<Path, Instance> e : instances.entrySet()) {
+              Instance instance = e.getValue();
+              String sizeClass = instance.nMeetings + "-" + instance.mAgents;
+              String key = Arrays.asList(BENCHMARKS).indexOf(benchmark) + " " + String.format("%5d %5d", instance.nMeetings, instance.mAgents);
+              Result r = results.get(key);
+              if (r == null) {
+                  r = new Result();
+                  r.benchmark = benchmark;
+                  r.sizeClass = sizeClass;
+                  results.put(key, r);
+              }
+              r.instances++;
+              for (int i = 0; i < warmup; i++) {
+                  measure(benchmark, e.getKey().toString(), instance, null);
+              }
+              for (int i = 0; i < iterations; i++) {
+                  measure(benchmark, e.getKey().toString(), instance, r);
+              }
+          }
+      }
+  }
+
+  // run one operation, and record its time in r unless r is null
+  void measure(String benchmark, String fname, Instance instance, Result r) throws IOException {
+      long nodes = 0;
+      long start = System.nanoTime();
+      if (benchmark.equals("parse")) {
+          InstanceReader.read(fname);
+      }
+      else if (benchmark.equals("solve-model")) {
+          new Solve(instance);
+      }
+      else if (benchmark.equals("optimize-model")) {
+          new Optimize(instance, limit);
+      }
+      else if (benchmark.equals("solve-search")) {
+          Solve msp = new Solve(instance);
+          SMF.limitTime(msp.solver, limit * 1000);
+          start = System.nanoTime();
+          msp.solve();
+          nodes = msp.solver.getMeasures().getNodeCount();
+      }
+      else if (benchmark.equals("optimize-search")) {
+          Optimize msp = new Optimize(instance, limit);
+          start = System.nanoTime();
+          msp.search();
+          nodes = msp.solver.getMeasures().getNodeCount();
+      }
+      else {
+          throw new IllegalArgumentException("unknown benchmark " + benchmark);
+      }
+      long time = System.nanoTime() - start;
+      if (r != null) {
+          r.times.add(time / 1e6);
+          r.nodes += nodes;
+      }
+  }
+
+  void write(PrintStream console) throws IOException {
+      console.println("benchmark,class,instances,runs,mean,min,stddev,nodes");
+      for (Result r : results.values()) console.println(r.toCSV());
+      if (out == null) return;
+      try (PrintWriter w = new PrintWriter(out)) {
+          boolean json = out.endsWith(".jsonl");
+          if (!json) w.println("benchmark,class,instances,runs,mean,min,stddev,nodes");
+          for (Result r : results.values()) w.println(json ? r.toJSON() : r.toCSV());
+      }
+  }
+
+  // the benchmarks that got slower than in the baseline CSV file by more than tolerance percent
+  List<String> regressions(String baseline, double tolerance) throws IOException {
+      Map<String, Double> before = new HashMap<String, Double>();
+      for (String line : Files.readAllLines(Paths.get(baseline))) {
+          String[] fields = line.split(",");
+          if (fields.length < 5 || fields[0].equals("benchmark")) continue;
+          before.put(fields[0] + "," + fields[1], Double.parseDouble(fields[4]));
+      }
+      List<String> slower = new ArrayList<String>();
+      for (Result r : results.values()) {
+          Double mean = before.get(r.benchmark + "," + r.sizeClass);
+          if (mean != null && r.mean() > mean * (1 + tolerance / 100)) {
+              slower.add(r.benchmark + " " + r.sizeClass + String.format(Locale.ROOT, ": %.4f ms, was %.4f ms", r.mean(), mean));
+          }
+      }
+      return slower;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Bench bench = new Bench();
+    String baseline = null;
+    double tolerance = 10;
+    for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("-warmup")) bench.warmup = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-iterations")) bench.iterations = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-limit")) bench.limit = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-only")) bench.only = Arrays.asList(args[++i].split(","));
+        else if (args[i].equals("-out")) bench.out = args[++i];
+        else if (args[i].equals("-baseline")) baseline = args[++i];
+        else if (args[i].equals("-tolerance")) tolerance = Double.parseDouble(args[++i]);
+        else if (args[i].equals("-nosym")) Symmetry.enabled = false;
+        else if (args[i].equals("-nopresolve")) Presolve.enabled = false;
+        else if (args[i].equals("-search")) Strategies.select().setVariables(args[++i]);
+        else if (args[i].equals("-value")) Strategies.select().setValues(args[++i]);
+        else if (args[i].equals("-restarts")) Strategies.select().setRestarts(args[++i]);
+        else bench.dirs.add(args[i]);
+    }
+    if (bench.dirs.isEmpty()) bench.dirs = Arrays.asList("problems", "rProblems");
+    for (String b : bench.only) {
+        if (!Arrays.asList(BENCHMARKS).contains(b)) {
+            System.out.println("unknown benchmark " + b + ", expected one of " + Arrays.toString(BENCHMARKS));
+            return;
+        }
+    }
+    bench.run();
+    bench.write(System.out);
+    if (baseline != null) {
+        List<String> slower = bench.regressions(baseline, tolerance);
+        for (String s : slower) System.out.println("regression: " + s);
+        if (!slower.isEmpty()) System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Persistent cache of what is known about instances, so that repeated runs on the same
+ * instance (sweeps, retries) start from the best schedule and bounds of earlier runs.
+ *
+ * Entries are keyed by the SHA-256 of the normalised instance: the number of meetings,
+ * the attendee set of every agent that attends anything (sorted, since agents can be
+ * renumbered freely) and the upper triangle of the distance matrix. The timeslots are
+ * not part of the key: an entry holds bounds on the last timeslot of any schedule, which
+ * answer Solve for every number of timeslots:
+ *     makespan  last timeslot of the best schedule known, -1 if none
+ *     lb        no schedule has its last timeslot before lb
+ *     optimal   true iff makespan == lb has been proved
+ * so Solve with T timeslots is feasible if makespan < T and infeasible if lb >= T.
+ *
+ * Each entry is one file dir/<key>.txt, replaced atomically when it changes. Updates are
+ * merged with what is already stored (best schedule, largest lb), under a lock file so
+ * that concurrent workers, in this JVM or in others, do not lose each other's results.
+ * The cache holds at most maxEntries entries; the least recently used ones are evicted.
+ * Optimize refuses -cache with -lns, -decompose, -portfolio and -dichotomy, which do
+ * not use it.
+ */
+
+public class Cache {
+
+  static final Object LOCK = new Object(); // file locks are per JVM, so threads also synchronise on this
+
+  File dir;
+  int maxEntries;
+
+  /*
+   * What is known about one instance
+   */
+  static class Entry {
+      int makespan = -1; // last timeslot of schedule, -1 if there is none
+      int lb = 0; // lower bound on the last timeslot
+      boolean optimal = false;
+      int[] schedule; // schedule[i] is the timeslot of meeting i, null if none
+
+      Entry() {}
+
+      Entry(int[] schedule, int lb, boolean optimal) {
+          this.schedule = schedule;
+          this.lb = lb;
+          this.optimal = optimal;
+          if (schedule != null) {
+              for (int t : schedule) makespan = Math.max(makespan, t);
+          }
+      }
+
+      // combine with another entry for the same instance
+      void merge(Entry other) {
+          if (other.schedule != null && (schedule == null || other.makespan < makespan)) {
+              schedule = other.schedule;
+              makespan = other.makespan;
+          }
+          lb = Math.max(lb, other.lb);
+          optimal = schedule != null && (optimal || other.optimal || makespan <= lb);
+      }
+
+      String format() {
+          StringBuilder s = new StringBuilder();
+          s.append("makespan ").append(makespan).append('\n');
+          s.append("lb ").append(lb).append('\n');
+          s.append("optimal ").append(optimal).append('\n');
+          if (schedule != null) {
+              for (int i = 0; i < schedule.length; i++) {
+                  s.append(i).append(' ').append(schedule[i]).append('\n');
+              }
+          }
+          return s.toString();
+      }
+
+      static Entry parse(List<String> lines) {
+          Entry e = new Entry();
+          List<Integer> slots = new ArrayList<Integer>();
+          for (String line : lines) {
+              String[] tokens = line.trim().split("\\s+");
+              if (tokens.length != 2) continue;
+              if (tokens[0].equals("makespan")) e.makespan = Integer.parseInt(tokens[1]);
+              else if (tokens[0].equals("lb")) e.lb = Integer.parseInt(tokens[1]);
+              else if (tokens[0].equals("optimal")) e.optimal = Boolean.parseBoolean(tokens[1]);
+              else slots.add(Integer.parseInt(tokens[1]));
+          }
+          if (e.makespan != -1) {
+              e.schedule = new int[slots.size()];
+              for (int i = 0; i < e.schedule.length; i++) e.schedule[i] = slots.get(i);
+          }
+          return e;
+      }
+  }
+
+  Cache(String dir) {
+      this(dir, 10000);
+  }
+
+  Cache(String dir, int maxEntries) {
+      this.dir = new File(dir);
+      this.maxEntries = maxEntries;
+      this.dir.mkdirs();
+  }
+
+  // SHA-256 of the normalised instance, in hexadecimal
+  static String key(Instance instance) {
+      int n = instance.nMeetings;
+      List<String> agents = new ArrayList<String>();
+      for (int a = 0; a < instance.mAgents; a++) {
+          StringBuilder row = new StringBuilder();
+          for (int m : instance.meetingsOf(a)) row.append(m).append(' ');
+          if (row.length() > 0) agents.add(row.toString());
+      }
+      agents.sort(null);
+      try {
+          MessageDigest digest = MessageDigest.getInstance("SHA-256");
+          digest.update((n + "\n").getBytes(StandardCharsets.UTF_8));
+          for (String row : agents) digest.update((row + "\n").getBytes(StandardCharsets.UTF_8));
+          byte[] bytes = new byte[4];
+          for (int i = 0; i < n; i++) {
+              for (int j = i + 1; j < n; j++) {
+                  int d = instance.distance(i, j);
+                  bytes[0] = (byte) (d >>> 24);
+                  bytes[1] = (byte) (d >>> 16);
+                  bytes[2] = (byte) (d >>> 8);
+                  bytes[3] = (byte) d;
+                  digest.update(bytes);
+              }
+          }
+          StringBuilder hex = new StringBuilder();
+          for (byte b : digest.digest()) hex.append(String.format("%02x", b));
+          return hex.toString();
+      }
+      catch (NoSuchAlgorithmException e) {
+          throw new IllegalStateException(e); // every JVM has SHA-256
+      }
+  }
+
+  private Path path(String key) {
+      return Paths.get(dir.getPath(), key + ".txt");
+  }
+
+  // the entry of an instance, null if there is none (or it is unreadable)
+  Entry get(String key) {
+      Path file = path(key);
+      try {
+          Entry e = Entry.parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+          Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis())); // recently used
+          return e;
+      }
+      catch (IOException | RuntimeException e) {
+          return null; // not cached, or removed by another worker meanwhile
+      }
+  }
+
+  Entry get(Instance instance) {
+      return get(key(instance));
+  }
+
+  // merge what was learnt about an instance into its entry, and evict old entries if needed
+  void put(Instance instance, Entry entry) throws IOException {
+      String key = key(instance);
+      synchronized (LOCK) {
+          try (RandomAccessFile lockFile = new RandomAccessFile(new File(dir, ".lock"), "rw");
+               FileChannel channel = lockFile.getChannel()) {
+              FileLock lock = channel.lock();
+              try {
+                  Entry stored = get(key);
+                  if (stored != null) {
+                      stored.merge(entry);
+                      entry = stored;
+                  }
+                  else {
+                      entry.merge(new Entry()); // sets optimal if the bounds meet
+                  }
+                  SolutionStream.writeAtomically(path(key), entry.format());
+                  evict();
+              }
+              finally {
+                  lock.release();
+              }
+          }
+      }
+  }
+
+  // remove the least recently used entries beyond maxEntries, with the lock held
+  private void evict() throws IOException {
+      List<Path> entries = new ArrayList<Path>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath(), "*.txt")) {
+          for (Path p : stream) entries.add(p);
+      }
+      if (entries.size() <= maxEntries) return;
+      final long[] used = new long[entries.size()];
+      Integer[] order = new Integer[entries.size()];
+      for (int i = 0; i < order.length; i++) {
+          order[i] = i;
+          used[i] = entries.get(i).toFile().lastModified();
+      }
+      Arrays.sort(order, (i, j) -> Long.compare(used[i], used[j]));
+      for (int i = 0; i < order.length - maxEntries; i++) {
+          Files.deleteIfExists(entries.get(order[i]));
+      }
+  }
+}
@@ -0,0 +1,203 @@
+import java.util.Arrays;
+
+/*
+ * Conflict graph of the meeting scheduling problem.
+ * There is an edge between meeting m1 and meeting m2 iff there is at least one agent
+ * that attends both of them, i.e. iff m1 and m2 cannot occur in parallel.
+ *
+ * The attendee set of each meeting is stored as a packed long[] bitset (one bit per agent),
+ * so that checking whether two meetings share an agent costs mAgents/64 word-wise ANDs
+ * instead of a scan over all mAgents rows of the attendance matrix. The graph takes its
+ * own copy of the attendee sets, as Reschedule changes them along with the instance.
+ */
+
+public class ConflictGraph {
+
+  int nMeetings; // number of meetings (vertices of the graph)
+  int mAgents; // number of agents
+  int words; // number of 64 bit words needed to store one attendee set
+  long[][] attendees; // attendees[m]: bit i is set iff agent i attends meeting m
+  int[][] meetings; // meetings[a]: all meetings agent a attends, in increasing order
+  int[][] adjacency; // adjacency[m]: all meetings that cannot occur in parallel with m, in increasing order
+  int nConflicts; // number of edges (conflicting pairs of meetings)
+
+  ConflictGraph(MeetingData data) {
+      this.nMeetings = data.nMeetings();
+      this.mAgents = data.mAgents();
+      this.words = (mAgents + 63) >>> 6;
+
+      /* copy the attendee set of each meeting and the meetings of each agent, as they change with the graph */
+      attendees = new long[nMeetings][];
+      for (int m = 0; m < nMeetings; m++) {
+          attendees[m] = Arrays.copyOf(data.attendees(m), words);
+      }
+      meetings = new int[mAgents][];
+      for (int i = 0; i < mAgents; i++) {
+          meetings[i] = data.meetingsOf(i);
+      }
+
+      /*
+       * compute all conflicting pairs: the meetings conflicting with m1 are the other
+       * meetings of the agents in its attendee set, so only pairs that share an agent
+       * are ever looked at. seen[m2] == m1 iff the pair was already found via another agent.
+       */
+      int[] degree = new int[nMeetings];
+      int[][] adj = new int[nMeetings][4];
+      int[] seen = new int[nMeetings];
+      Arrays.fill(seen, -1);
+      for (int m1 = 0; m1 < nMeetings; m1++) {
+          for (int w = 0; w < words; w++) {
+              for (long bits = attendees[m1][w]; bits != 0; bits &= bits - 1) {
+                  int a = (w << 6) + Long.numberOfTrailingZeros(bits);
+                  for (int m2 : meetings[a]) {
+                      if (m2 <= m1 || seen[m2] == m1) continue;
+                      seen[m2] = m1;
+                      adj[m1] = add(adj[m1], degree[m1]++, m2);
+                      adj[m2] = add(adj[m2], degree[m2]++, m1);
+                      nConflicts++;
+                  }
+              }
+          }
+      }
+      adjacency = new int[nMeetings][];
+      for (int m = 0; m < nMeetings; m++) {
+          adjacency[m] = Arrays.copyOf(adj[m], degree[m]);
+          Arrays.sort(adjacency[m]);
+      }
+  }
+
+  /* Checks whether meeting m1 and meeting m2 can occur in parallel
+   *     if yes: returns true
+   *     if no: returns false
+   * meetings m1 and m2 can occur in parallel iff there does not exist any agent that has to
+   * attend both of them.
+   */
+  boolean canBeParallel(int m1, int m2) {
+      return !intersects(attendees[m1], attendees[m2]);
+  }
+
+  // all meetings that cannot occur in parallel with meeting m
+  int[] neighbours(int m) {
+      return adjacency[m];
+  }
+
+  // all meetings agent a attends
+  int[] meetingsOf(int a) {
+      return meetings[a];
+  }
+
+  // number of meetings that cannot occur in parallel with meeting m
+  int degree(int m) {
+      return adjacency[m].length;
+  }
+
+  // true iff no agent attends meeting m
+  boolean isUnattended(int m) {
+      for (int w = 0; w < words; w++) {
+          if (attendees[m][w] != 0) return false;
+      }
+      return true;
+  }
+
+  // true iff agent a attends meeting m
+  boolean attends(int a, int m) {
+      return (attendees[m][a >>> 6] & (1L << a)) != 0;
+  }
+
+  // all agents that attend meeting m
+  int[] agentsOf(int m) {
+      int k = 0;
+      int[] agents = new int[mAgents];
+      for (int w = 0; w < words; w++) {
+          for (long bits = attendees[m][w]; bits != 0; bits &= bits - 1) {
+              agents[k++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+          }
+      }
+      return Arrays.copyOf(agents, k);
+  }
+
+  /*
+   * Agent a starts (attends = true) or stops attending meeting m. Only the edges
+   * between m and the other meetings of a are updated.
+   */
+  void setAttendance(int a, int m, boolean attends) {
+      if (attends(a, m) == attends) return;
+      if (attends) {
+          attendees[m][a >>> 6] |= 1L << a;
+          for (int j : meetings[a]) {
+              if (Arrays.binarySearch(adjacency[m], j) < 0) link(m, j);
+          }
+          meetings[a] = insert(meetings[a], m);
+      }
+      else {
+          attendees[m][a >>> 6] &= ~(1L << a);
+          meetings[a] = remove(meetings[a], m);
+          for (int j : meetings[a]) {
+              if (canBeParallel(m, j)) unlink(m, j);
+          }
+      }
+  }
+
+  // add a meeting nobody attends yet, returns its number
+  int addMeeting() {
+      attendees = Arrays.copyOf(attendees, nMeetings + 1);
+      attendees[nMeetings] = new long[words];
+      adjacency = Arrays.copyOf(adjacency, nMeetings + 1);
+      adjacency[nMeetings] = new int[0];
+      return nMeetings++;
+  }
+
+  private void link(int m1, int m2) {
+      adjacency[m1] = insert(adjacency[m1], m2);
+      adjacency[m2] = insert(adjacency[m2], m1);
+      nConflicts++;
+  }
+
+  private void unlink(int m1, int m2) {
+      adjacency[m1] = remove(adjacency[m1], m2);
+      adjacency[m2] = remove(adjacency[m2], m1);
+      nConflicts--;
+  }
+
+  // insert value into a sorted list
+  private static int[] insert(int[] list, int value) {
+      int i = -Arrays.binarySearch(list, value) - 1;
+      int[] result = new int[list.length + 1];
+      System.arraycopy(list, 0, result, 0, i);
+      result[i] = value;
+      System.arraycopy(list, i, result, i + 1, list.length - i);
+      return result;
+  }
+
+  // remove value from a sorted list that contains it
+  private static int[] remove(int[] list, int value) {
+      int i = Arrays.binarySearch(list, value);
+      int[] result = new int[list.length - 1];
+      System.arraycopy(list, 0, result, 0, i);
+      System.arraycopy(list, i + 1, result, i, list.length - i - 1);
+      return result;
+  }
+
+  // an agent that attends both m1 and m2, -1 if they can occur in parallel
+  int sharedAgent(int m1, int m2) {
+      for (int w = 0; w < words; w++) {
+          long common = attendees[m1][w] & attendees[m2][w];
+          if (common != 0) return (w << 6) + Long.numberOfTrailingZeros(common);
+      }
+      return -1;
+  }
+
+  static boolean intersects(long[] s1, long[] s2) {
+      for (int w = 0; w < s1.length; w++) {
+          if ((s1[w] & s2[w]) != 0) return true;
+      }
+      return false;
+  }
+
+  // store value at position i of list, growing the list if it is full
+  private static int[] add(int[] list, int i, int value) {
+      if (i == list.length) list = Arrays.copyOf(list, 2 * list.length);
+      list[i] = value;
+      return list;
+  }
+}
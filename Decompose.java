@@ -0,0 +1,169 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.variables.IntVar;
+
+/*
+ * Solves the independent parts of an instance separately.
+ *
+ * Meetings in different connected components of the conflict graph share no agent,
+ * so the components can be scheduled independently and in parallel, and the schedules
+ * merged. Meetings nobody attends, and meetings that conflict with no other meeting,
+ * go to timeslot 0 directly. When optimizing, the number of timeslots of the whole
+ * schedule is the maximum over the components, so each one is minimised on its own.
+ *
+ *     java Decompose rProblems/100-50-10-2-00.txt 20
+ *     java Decompose problems/problem01.txt -solve
+ */
+
+public class Decompose {
+
+  Instance instance;
+  ConflictGraph graph;
+  List<int[]> components = new ArrayList<int[]>(); // meetings of each component, in increasing order
+  int isolated = 0; // number of meetings put at timeslot 0 directly
+
+  int timeLimit = -1; // time limit per component in seconds, -1 if none
+  int threads = Runtime.getRuntime().availableProcessors();
+  boolean solveOnly = false; // run Solve on the components instead of Optimize
+
+  int[] schedule; // schedule[i] is the timeslot of meeting i, null if there is no solution
+  int makespan = 0; // last timeslot used by the schedule
+  boolean optimal = true; // true iff every component was solved to optimality
+  long nodes = 0;
+  float cpu = 0; // longest search time over the components
+
+  Decompose(Instance instance) {
+      this.instance = instance;
+      this.graph = new ConflictGraph(instance);
+      schedule = new int[instance.nMeetings];
+
+      /* connected components by depth first search */
+      boolean[] seen = new boolean[instance.nMeetings];
+      int[] stack = new int[instance.nMeetings];
+      for (int m = 0; m < instance.nMeetings; m++) {
+          if (seen[m]) continue;
+          if (graph.degree(m) == 0) {
+              seen[m] = true;
+              isolated++;
+              continue;
+          }
+          int size = 0;
+          int top = 0;
+          int[] component = new int[instance.nMeetings];
+          stack[top++] = m;
+          seen[m] = true;
+          while (top > 0) {
+              int u = stack[--top];
+              component[size++] = u;
+              for (int v : graph.neighbours(u)) {
+                  if (!seen[v]) {
+                      seen[v] = true;
+                      stack[top++] = v;
+                  }
+              }
+          }
+          component = Arrays.copyOf(component, size);
+          Arrays.sort(component);
+          components.add(component);
+      }
+  }
+
+  void solve() throws Exception {
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      try {
+          List<Future<int[]>> parts = new ArrayList<Future<int[]>>();
+          for (final int[] component : components) {
+              parts.add(pool.submit(() -> solve(instance.sub(component))));
+          }
+          for (int c = 0; c < components.size(); c++) {
+              int[] part = parts.get(c).get();
+              if (part == null) {
+                  schedule = null;
+                  continue;
+              }
+              if (schedule == null) continue;
+              int[] component = components.get(c);
+              for (int i = 0; i < component.length; i++) {
+                  schedule[component[i]] = part[i];
+                  makespan = Math.max(makespan, part[i]);
+              }
+          }
+      }
+      finally {
+          pool.shutdown();
+      }
+  }
+
+  // schedule of one component, null if it has none (Solve only)
+  int[] solve(Instance sub) {
+      int[] part = null;
+      if (solveOnly) {
+          Solve msp = new Solve(sub);
+          if (msp.solve()) part = values(msp.meeting);
+          record(msp.solver, true);
+      }
+      else {
+          Optimize msp = new Optimize(sub, timeLimit);
+          msp.search();
+          // without a solution in time, the component keeps its greedy schedule (not optimal)
+          part = msp.solver.getMeasures().getSolutionCount() > 0 ? values(msp.meeting) : msp.warmStart;
+          record(msp.solver, msp.isOptimal());
+      }
+      return part;
+  }
+
+  private synchronized void record(Solver solver, boolean optimal) {
+      this.optimal &= optimal;
+      nodes += solver.getMeasures().getNodeCount();
+      cpu = Math.max(cpu, solver.getMeasures().getTimeCount());
+  }
+
+  static int[] values(IntVar[] meeting) {
+      int[] values = new int[meeting.length];
+      for (int i = 0; i < meeting.length; i++) {
+          values[i] = meeting[i].getValue();
+      }
+      return values;
+  }
+
+  void result(PrintStream out) {
+      if (schedule == null) {
+          out.println(false);
+          return;
+      }
+      for (int i = 0; i < instance.nMeetings; i++) {
+          out.println(i + " " + schedule[i]);
+      }
+  }
+
+  void stats(PrintStream out) {
+      if (!solveOnly && schedule != null) {
+          out.println("timeslots = " + makespan + (optimal ? " (optimal)" : ""));
+      }
+      out.println("components: " + components.size() + "   isolated meetings: " + isolated);
+      out.println("nodes: " + nodes + "   cpu: " + cpu);
+  }
+
+  void run() throws Exception {
+    solve();
+    result(System.out);
+    stats(System.out);
+  }
+
+  public static void main(String[] args) throws Exception {
+    Decompose msp = new Decompose(InstanceReader.read(args[0]));
+    for (int i = 1; i < args.length; i++) {
+        if (args[i].equals("-solve")) msp.solveOnly = true;
+        else if (args[i].equals("-threads")) msp.threads = Integer.parseInt(args[++i]);
+        else msp.timeLimit = Integer.parseInt(args[i]);
+    }
+    msp.run();
+  }
+}
@@ -0,0 +1,171 @@
+import java.io.PrintStream;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.loop.monitors.IMonitorOpenNode;
+
+/*
+ * Dichotomic search on the number of timeslots, as an alternative to the branch and
+ * bound of Optimize.
+ *
+ * The model of Optimize is built once. Each probe asks for a schedule whose last meeting
+ * is at timeslot mid or earlier, halfway between the bounds: a world is pushed for the
+ * probe and the cut timeslots <= mid posted in it as a temporary constraint; after the
+ * probe the search loop is reset, the world popped (which restores the domains the cut
+ * pruned) and the cut unposted. A schedule found lowers the upper bound to its
+ * last timeslot, a search that completes without one raises the lower bound to mid + 1.
+ * The search strategy, and the constraint weights dom/wdeg has learned, are the same
+ * object from one probe to the next, so every probe starts from what the earlier ones
+ * learned about which meetings are hard to place.
+ *
+ * Each probe has its own time budget: the time left shared by the probes still needed
+ * to close the gap (or -probe ms). A probe that runs out of time proves nothing; the
+ * next probes go on above it, and once the gap cannot be split any more the unresolved
+ * horizons are probed again with twice the budget.
+ *
+ * With restarts, nogoods are recorded (see Strategies). A nogood learned under the cut
+ * timeslots <= mid holds for every probe at mid or below, so they are kept while the
+ * probes tighten (after a schedule is found); a probe above the smallest cut the model
+ * has seen (after lo moves up) would be pruned by them, so the model is built again,
+ * without nogoods, before it.
+ *
+ *     java Optimize rProblems/40-10-20-9-00.txt 10 -dichotomy [-probe ms]
+ *
+ * -cache, -stream, -trace and -ls do not apply to the dichotomy and are refused with it.
+ *
+ * When time runs out, the proven interval [LB, UB] is reported with the best schedule.
+ */
+
+public class Dichotomy implements IMonitorOpenNode {
+
+  Instance instance;
+  Optimize msp; // the model
+  Solver solver;
+  boolean nogoods; // the model records nogoods on restarts
+  int learned = Integer.MAX_VALUE; // the cut of the tightest probe on the model: its nogoods hold up to there
+  int timeLimit; // in seconds, -1 if none
+  int probeLimit = -1; // time budget of each probe in milliseconds, -1 to share the time left
+
+  int lb; // no schedule ends before timeslot lb
+  int ub; // the best schedule ends at timeslot ub
+  int[] schedule; // the best schedule
+  int probes = 0;
+  int unresolved = 0; // probes that ran out of time
+  int rebuilds = 0; // models built again to forget their nogoods
+  long nodes = 0;
+  long start;
+  long probeDeadline;
+
+  Dichotomy(Instance instance, int timeLimit) {
+      this.instance = instance;
+      this.timeLimit = timeLimit;
+      Strategies selected = Strategies.selected;
+      nogoods = selected != null && selected.nogoods && !selected.restarts.equals("none");
+      build();
+      lb = msp.minBound;
+      ub = msp.maxBound;
+      schedule = msp.warmStart;
+  }
+
+  private void build() {
+      msp = new Optimize(instance, -1);
+      solver = msp.solver;
+      solver.plugMonitor(this);
+      learned = Integer.MAX_VALUE;
+  }
+
+  void search() {
+      start = System.currentTimeMillis();
+      long deadline = timeLimit == -1 ? Long.MAX_VALUE : start + timeLimit * 1000L;
+      int lo = lb; // probes go on from here: below it is proved or unresolved
+      int budget = probeLimit;
+      while (lb < ub && System.currentTimeMillis() < deadline) {
+          if (lo >= ub) {
+              // every horizon left has been probed without an answer: again, with more time
+              lo = lb;
+              if (budget != -1) budget *= 2;
+          }
+          int mid = lo + (ub - 1 - lo) / 2;
+          long now = System.currentTimeMillis();
+          long time = deadline - now;
+          if (budget != -1) {
+              time = Math.min(time, budget);
+          }
+          else if (deadline != Long.MAX_VALUE) {
+              time = time / (32 - Integer.numberOfLeadingZeros(ub - lo)); // the probes needed to close the gap
+          }
+          probeDeadline = time >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + Math.max(time, 1);
+          switch (probe(mid)) {
+              case 1: // found, ub is now at most mid
+                  break;
+              case 0: // no schedule ends by mid
+                  lb = Math.max(lb, mid + 1);
+                  lo = Math.max(lo, mid + 1);
+                  break;
+              default: // out of time
+                  unresolved++;
+                  if (budget == -1 && timeLimit != -1) budget = (int) Math.min(Integer.MAX_VALUE, time);
+                  lo = mid + 1;
+                  break;
+          }
+      }
+  }
+
+  // look for a schedule ending at timeslot mid or earlier: 1 if found, 0 if there is none, -1 if out of time
+  int probe(int mid) {
+      probes++;
+      if (nogoods && mid > learned) {
+          // the nogoods of the tighter cuts would prune this horizon
+          build();
+          rebuilds++;
+      }
+      learned = Math.min(learned, mid);
+      IEnvironment env = solver.getEnvironment();
+      int world = env.getWorldIndex();
+      Constraint cut = ICF.arithm(msp.timeslots, "<=", mid);
+      try {
+          solver.propagate(); // the engine must be running before a temporary constraint is posted
+          env.worldPush(); // the cut lives in this world, and goes when it is popped
+          solver.postTemp(cut);
+          boolean found = solver.findSolution();
+          nodes += solver.getMeasures().getNodeCount();
+          if (found) {
+              schedule = Decompose.values(msp.meeting);
+              ub = 0;
+              for (int t : schedule) ub = Math.max(ub, t);
+              return 1;
+          }
+          return solver.hasReachedLimit() ? -1 : 0;
+      }
+      catch (ContradictionException e) {
+          return 0; // the cut alone fails
+      }
+      finally {
+          solver.getSearchLoop().reset();
+          env.worldPopUntil(world);
+          solver.unpost(cut);
+      }
+  }
+
+  // stop a probe once its budget is spent
+  public void beforeOpenNode() {
+      if (System.currentTimeMillis() > probeDeadline) solver.getSearchLoop().reachLimit();
+  }
+
+  public void afterOpenNode() {}
+
+  void result(PrintStream out) {
+      for (int i = 0; i < schedule.length; i++) {
+          out.println(i + " " + schedule[i]);
+      }
+  }
+
+  void stats(PrintStream out) {
+      out.println("timeslots = " + ub + (lb == ub ? " (optimal)" : "") + "   interval: [" + lb + "," + ub + "]");
+      out.println("probes: " + probes + "   out of time: " + unresolved + (nogoods ? "   models rebuilt: " + rebuilds : ""));
+      out.println("nodes: " + nodes + "   cpu: " + (System.currentTimeMillis() - start) / 1000f);
+  }
+}
@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Distributed solving of the meeting scheduling problem: every agent is an independent
+ * actor that only knows its own meetings, the meetings that conflict with them, and
+ * the timeslots other agents announce to it in messages.
+ *
+ * Each meeting is owned by the first agent that attends it, which chooses its timeslot
+ * in [0, timeslots) and tells the owners of the conflicting meetings whenever it changes
+ * (meetings nobody attends are put at timeslot 0). This is asynchronous distributed local
+ * search in the style of the distributed breakout algorithm: when an agent is woken up
+ * by messages, it moves each of its meetings that conflicts with what it knows to the
+ * timeslot with the fewest (weighted) conflicts, with some probability so that neighbours
+ * do not keep moving in step; when no move improves a meeting, the weights of its current
+ * conflicts are increased, so that the next moves get it out of the local minimum.
+ *
+ * The agents run as actors on a pool of threads: an agent is scheduled when it has
+ * messages (or still has conflicts) and never runs on two threads at once. The search
+ * has converged when no agent is running, no message is in flight and no agent knows of
+ * a conflict; the schedule is then checked by Validator. Without a time limit it gives up
+ * after MAX_IDLE milliseconds without fewer conflicts than before (as on an instance with
+ * no schedule), and reports that no schedule was found.
+ *
+ *     java Distributed rProblems/20-10-20-9-00.txt [timeLimit] [-threads k] [-seed s]
+ *
+ * The output is that of Solve, followed by the number of messages and the time to converge.
+ */
+
+public class Distributed {
+
+  static final double MOVE_PROBABILITY = 0.8; // probability that an agent takes an improving move
+  static final long MAX_IDLE = 10000; // without a time limit, milliseconds without fewer conflicts before giving up
+
+  Instance instance;
+  ConflictGraph graph;
+  int timeslots;
+  int threads = Runtime.getRuntime().availableProcessors();
+  int timeLimit = -1; // in seconds, -1 if none
+  long seed = 0;
+
+  Agent[] agents;
+  int[] owner; // owner[m]: the agent that chooses the timeslot of meeting m, -1 if nobody attends it
+  ExecutorService pool;
+  AtomicLong messages = new AtomicLong(); // messages sent
+  AtomicLong inFlight = new AtomicLong(); // messages sent but not yet read
+  AtomicInteger running = new AtomicInteger(); // agents running right now
+  AtomicInteger conflicts = new AtomicInteger(); // conflicts known to the agents, summed
+  volatile boolean stopped = false;
+
+  int[] schedule; // the schedule found, null if none
+  long millis; // time to converge, or to give up
+
+  Distributed(Instance instance) {
+      this.instance = instance;
+      this.timeslots = instance.timeslots;
+      this.graph = new ConflictGraph(instance);
+  }
+
+  /*
+   * One agent: its meetings, and what it knows of the meetings that conflict with them
+   */
+  class Agent implements Runnable {
+      int id;
+      int[] owned; // the meetings this agent owns
+      int[] known; // the owned meetings and all meetings conflicting with them, in increasing order
+      int[] slot; // slot[i]: timeslot of meeting known[i] as far as this agent knows, -1 if not told yet
+      int[][] weight; // weight[i][k]: weight of the conflict between owned[i] and its k-th neighbour
+      int[][] notify; // notify[i]: the agents to tell when owned[i] moves
+      int conflictCount = 0; // conflicts of the owned meetings, at the end of the last run
+      ConcurrentLinkedQueue<long[]> inbox = new ConcurrentLinkedQueue<long[]>();
+      AtomicBoolean scheduled = new AtomicBoolean(false);
+      Random random;
+      int[] cost = new int[timeslots + 1]; // scratch: weighted conflicts of each timeslot
+
+      Agent(int id) {
+          this.id = id;
+          this.random = new Random(seed * 31 + id);
+      }
+
+      private int index(int m) {
+          return Arrays.binarySearch(known, m);
+      }
+
+      // update what this agent knows, choose the moves, tell the others
+      public void run() {
+          running.incrementAndGet();
+          try {
+              long[] message;
+              while ((message = inbox.poll()) != null) {
+                  slot[index((int) message[0])] = (int) message[1];
+                  inFlight.decrementAndGet();
+              }
+              if (!stopped) step();
+          }
+          finally {
+              scheduled.set(false);
+              if (!stopped && (!inbox.isEmpty() || conflictCount > 0)) wake();
+              running.decrementAndGet();
+          }
+      }
+
+      void wake() {
+          if (scheduled.compareAndSet(false, true)) pool.execute(this);
+      }
+
+      private void step() {
+          int count = 0;
+          for (int i = 0; i < owned.length; i++) {
+              int m = owned[i];
+              int current = slot[index(m)];
+              int[] neighbours = graph.neighbours(m);
+
+              /* weighted conflicts of every timeslot, by adding up the ranges each neighbour rules out */
+              Arrays.fill(cost, 0);
+              for (int k = 0; k < neighbours.length; k++) {
+                  int s = slot[index(neighbours[k])];
+                  if (s == -1) continue;
+                  int d = Travel.distance(instance, m, neighbours[k]);
+                  cost[Math.max(0, s - d)] += weight[i][k];
+                  cost[Math.min(timeslots, s + d + 1)] -= weight[i][k];
+              }
+              for (int t = 1; t < timeslots; t++) cost[t] += cost[t - 1];
+              if (cost[current] == 0) continue;
+
+              int best = Integer.MAX_VALUE;
+              int ties = 0;
+              int choice = current;
+              for (int t = 0; t < timeslots; t++) {
+                  if (cost[t] < best) {
+                      best = cost[t];
+                      choice = t;
+                      ties = 1;
+                  }
+                  else if (cost[t] == best && random.nextInt(++ties) == 0) {
+                      choice = t;
+                  }
+              }
+              if (best < cost[current]) {
+                  if (random.nextDouble() < MOVE_PROBABILITY) {
+                      move(i, choice);
+                      current = choice;
+                  }
+              }
+              else {
+                  // local minimum: make its conflicts heavier
+                  for (int k = 0; k < neighbours.length; k++) {
+                      int s = slot[index(neighbours[k])];
+                      if (s != -1 && Math.abs(current - s) <= Travel.distance(instance, m, neighbours[k])) {
+                          weight[i][k]++;
+                      }
+                  }
+              }
+              for (int k = 0; k < neighbours.length; k++) {
+                  int s = slot[index(neighbours[k])];
+                  if (s != -1 && Math.abs(current - s) <= Travel.distance(instance, m, neighbours[k])) count++;
+              }
+          }
+          conflicts.addAndGet(count - conflictCount);
+          conflictCount = count;
+      }
+
+      // put owned[i] at timeslot t and tell the agents that need to know
+      void move(int i, int t) {
+          int m = owned[i];
+          slot[index(m)] = t;
+          for (int a : notify[i]) send(agents[a], m, t);
+      }
+  }
+
+  void send(Agent to, int m, int t) {
+      messages.incrementAndGet();
+      inFlight.incrementAndGet();
+      to.inbox.add(new long[]{m, t});
+      to.wake();
+  }
+
+  // build the agents, their meetings and what they must know
+  private void setup() {
+      int n = instance.nMeetings;
+      owner = new int[n];
+      for (int m = 0; m < n; m++) {
+          int[] attendees = graph.agentsOf(m);
+          owner[m] = attendees.length == 0 ? -1 : attendees[0];
+      }
+      agents = new Agent[instance.mAgents];
+      int[] seen = new int[n]; // seen[m] == a iff meeting m is already known to agent a
+      int[] told = new int[instance.mAgents]; // told[o] == m iff agent o is already told about meeting m
+      Arrays.fill(seen, -1);
+      Arrays.fill(told, -1);
+      for (int a = 0; a < instance.mAgents; a++) {
+          Agent agent = new Agent(a);
+          int k = 0;
+          int[] owned = new int[graph.meetingsOf(a).length];
+          for (int m : graph.meetingsOf(a)) {
+              if (owner[m] == a) owned[k++] = m;
+          }
+          agent.owned = Arrays.copyOf(owned, k);
+          int size = 0;
+          int[] known = new int[4];
+          agent.weight = new int[k][];
+          agent.notify = new int[k][];
+          for (int i = 0; i < k; i++) {
+              int m = agent.owned[i];
+              int[] neighbours = graph.neighbours(m);
+              if (size + neighbours.length + 1 > known.length) {
+                  known = Arrays.copyOf(known, Math.max(2 * known.length, size + neighbours.length + 1));
+              }
+              if (seen[m] != a) { seen[m] = a; known[size++] = m; }
+              agent.weight[i] = new int[neighbours.length];
+              Arrays.fill(agent.weight[i], 1);
+              int[] notify = new int[neighbours.length];
+              int count = 0;
+              for (int j : neighbours) {
+                  if (seen[j] != a) { seen[j] = a; known[size++] = j; }
+                  int o = owner[j];
+                  if (o != a && told[o] != m) {
+                      told[o] = m;
+                      notify[count++] = o;
+                  }
+              }
+              agent.notify[i] = Arrays.copyOf(notify, count);
+          }
+          agent.known = Arrays.copyOf(known, size);
+          Arrays.sort(agent.known);
+          agent.slot = new int[size];
+          Arrays.fill(agent.slot, -1);
+          agents[a] = agent;
+      }
+  }
+
+  // true iff a schedule was found before the time limit, or before giving up without one
+  boolean solve() throws InterruptedException {
+      setup();
+      long start = System.currentTimeMillis();
+      long deadline = timeLimit == -1 ? Long.MAX_VALUE : start + timeLimit * 1000L;
+      if (timeslots <= 0) {
+          // no timeslot for the meetings somebody attends: no schedule
+          for (int m = 0; m < instance.nMeetings; m++) {
+              if (owner[m] != -1) return false;
+          }
+      }
+      pool = Executors.newFixedThreadPool(threads);
+      try {
+          /* every agent starts from random timeslots for its meetings, and tells the others */
+          for (Agent agent : agents) {
+              for (int m : agent.owned) agent.slot[agent.index(m)] = agent.random.nextInt(timeslots);
+          }
+          for (Agent agent : agents) {
+              for (int i = 0; i < agent.owned.length; i++) {
+                  agent.move(i, agent.slot[agent.index(agent.owned[i])]);
+              }
+          }
+          for (Agent agent : agents) agent.wake();
+
+          int fewest = Integer.MAX_VALUE; // fewest conflicts seen so far
+          long improved = System.currentTimeMillis(); // when they were seen
+          while (System.currentTimeMillis() < deadline) {
+              Thread.sleep(1);
+              long now = System.currentTimeMillis();
+              if (conflicts.get() < fewest) {
+                  fewest = conflicts.get();
+                  improved = now;
+              }
+              else if (timeLimit == -1 && now - improved > MAX_IDLE) {
+                  break;
+              }
+              if (running.get() == 0 && inFlight.get() == 0 && conflicts.get() == 0) {
+                  int[] candidate = current();
+                  if (new Validator(instance, graph).check(candidate)) {
+                      schedule = candidate;
+                      break;
+                  }
+              }
+          }
+      }
+      finally {
+          stopped = true;
+          pool.shutdown();
+          millis = System.currentTimeMillis() - start;
+      }
+      return schedule != null;
+  }
+
+  // the timeslot of every meeting, as chosen by its owner
+  int[] current() {
+      int[] s = new int[instance.nMeetings];
+      for (int m = 0; m < s.length; m++) {
+          if (owner[m] != -1) {
+              Agent agent = agents[owner[m]];
+              s[m] = agent.slot[agent.index(m)];
+          }
+      }
+      return s;
+  }
+
+  void result(PrintStream out) {
+      for (int i = 0; i < instance.nMeetings; i++) {
+          out.println(i + " " + schedule[i]);
+      }
+  }
+
+  void stats(PrintStream out) {
+      out.println("messages: " + messages.get() + "   agents: " + agents.length + "   threads: " + threads
+                + "   " + (schedule != null ? "converged" : "not converged") + " in " + millis + " ms");
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Distributed msp = new Distributed(InstanceReader.read(args[0]));
+    for (int i = 1; i < args.length; i++) {
+        if (args[i].equals("-threads")) msp.threads = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-seed")) msp.seed = Long.parseLong(args[++i]);
+        else msp.timeLimit = Integer.parseInt(args[i]);
+    }
+    if (msp.solve())
+        msp.result(System.out);
+    else
+        System.out.println(false);
+    msp.stats(System.out);
+  }
+}
@@ -0,0 +1,183 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Generates random instances of the meeting scheduling problem, in the input format
+ * read by InstanceReader:
+ *
+ *     java Generate n m k T d seed [file]
+ *     java Generate 10000 500 40 200 9 1
+ *
+ * n meetings, m agents each attending k different meetings (chosen uniformly), T timeslots,
+ * and travel distances between 1 and d. The same parameters always give the same instance.
+ * The default file name is n-m-T-d-seed.txt, "-" writes the instance to standard output.
+ *
+ * The instance is streamed to the file as it is generated: the meetings of an agent come
+ * from a random generator seeded with the seed and the agent, and the distance between
+ * two meetings is a hash of the seed and the pair of meetings, so it is the same whichever
+ * way round it is asked for. Only one row of the output is held in memory at a time, and
+ * instances with tens of thousands of meetings can be written without an n x n matrix.
+ */
+
+public class Generate {
+
+  int nMeetings; // number of meetings
+  int mAgents; // number of agents
+  int perAgent; // meetings attended by each agent
+  int timeslots; // timeslots available
+  int maxDistance; // largest travel distance between two meetings
+  long seed;
+
+  Generate(int nMeetings, int mAgents, int perAgent, int timeslots, int maxDistance, long seed) {
+      if (perAgent > nMeetings) throw new IllegalArgumentException("an agent cannot attend more than " + nMeetings + " meetings");
+      if (maxDistance < 1) throw new IllegalArgumentException("the largest distance must be at least 1");
+      this.nMeetings = nMeetings;
+      this.mAgents = mAgents;
+      this.perAgent = perAgent;
+      this.timeslots = timeslots;
+      this.maxDistance = maxDistance;
+      this.seed = seed;
+  }
+
+  // the meetings agent a attends, in increasing order
+  int[] meetings(int a) {
+      Random random = new Random(mix(seed, a));
+      int[] chosen = new int[perAgent];
+      boolean[] taken = new boolean[nMeetings];
+      // Floyd's algorithm: perAgent distinct values in [0, nMeetings)
+      for (int i = 0, j = nMeetings - perAgent; i < perAgent; i++, j++) {
+          int t = random.nextInt(j + 1);
+          if (taken[t]) t = j;
+          taken[t] = true;
+          chosen[i] = t;
+      }
+      Arrays.sort(chosen);
+      return chosen;
+  }
+
+  // the travel distance between meetings i and j, symmetric and 0 iff i == j
+  int distance(int i, int j) {
+      if (i == j) return 0;
+      long pair = ((long) Math.max(i, j) << 32) | Math.min(i, j);
+      return 1 + (int) ((mix(seed, pair) >>> 1) % maxDistance);
+  }
+
+  // a well spread 64 bit hash of seed and value (the splitmix64 finaliser)
+  static long mix(long seed, long value) {
+      long z = seed * 0x9E3779B97F4A7C15L + value;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+  }
+
+  void write(OutputStream stream) throws IOException {
+      Writer out = new Writer(stream);
+      out.number(nMeetings).space().number(mAgents).space().number(timeslots).newline().newline();
+      for (int a = 0; a < mAgents; a++) {
+          out.number(a).colon();
+          int[] row = meetings(a);
+          int next = 0;
+          for (int m = 0; m < nMeetings; m++) {
+              boolean attends = next < row.length && row[next] == m;
+              if (attends) next++;
+              out.space().number(attends ? 1 : 0);
+          }
+          out.newline();
+      }
+      out.newline();
+      for (int i = 0; i < nMeetings; i++) {
+          out.number(i).colon();
+          for (int j = 0; j < nMeetings; j++) {
+              out.space().number(distance(i, j));
+          }
+          out.newline();
+      }
+      out.flush();
+  }
+
+  /*
+   * Writes numbers and separators to a byte buffer, so that no String is built per number
+   */
+  static class Writer {
+      OutputStream out;
+      byte[] buffer = new byte[1 << 16];
+      int size = 0;
+
+      Writer(OutputStream out) {
+          this.out = out;
+      }
+
+      Writer number(int v) throws IOException {
+          if (size + 12 > buffer.length) flushBuffer();
+          if (v < 0) {
+              buffer[size++] = '-';
+              v = -v;
+          }
+          int start = size;
+          do {
+              buffer[size++] = (byte) ('0' + v % 10);
+              v /= 10;
+          } while (v > 0);
+          for (int i = start, j = size - 1; i < j; i++, j--) {
+              byte b = buffer[i];
+              buffer[i] = buffer[j];
+              buffer[j] = b;
+          }
+          return this;
+      }
+
+      Writer space() throws IOException {
+          return put(' ');
+      }
+
+      Writer colon() throws IOException {
+          return put(':');
+      }
+
+      Writer newline() throws IOException {
+          return put('\n');
+      }
+
+      private Writer put(char c) throws IOException {
+          if (size == buffer.length) flushBuffer();
+          buffer[size++] = (byte) c;
+          return this;
+      }
+
+      private void flushBuffer() throws IOException {
+          out.write(buffer, 0, size);
+          size = 0;
+      }
+
+      void flush() throws IOException {
+          flushBuffer();
+          out.flush();
+      }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 6) {
+        System.out.println("usage: java Generate <meetings> <agents> <meetingsPerAgent> <timeslots> <maxDistance> <seed> [file]");
+        return;
+    }
+    int n = Integer.parseInt(args[0]);
+    int m = Integer.parseInt(args[1]);
+    int k = Integer.parseInt(args[2]);
+    int T = Integer.parseInt(args[3]);
+    int d = Integer.parseInt(args[4]);
+    long seed = Long.parseLong(args[5]);
+    String fname = args.length > 6 ? args[6] : String.format("%d-%d-%d-%d-%02d.txt", n, m, T, d, seed);
+    Generate generator = new Generate(n, m, k, T, d, seed);
+    if (fname.equals("-")) {
+        generator.write(System.out);
+        return;
+    }
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fname), 1 << 20)) {
+        generator.write(out);
+    }
+  }
+}
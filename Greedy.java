@@ -0,0 +1,113 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Greedy list scheduling for the meeting scheduling problem.
+ *
+ * Meetings are taken one at a time in some order, and each is put in the earliest
+ * timeslot that respects the travel time to every meeting already scheduled that it
+ * cannot occur in parallel with. The schedule is always valid, since there is no upper
+ * limit on the timeslots. Several orders are tried (index order, most conflicting
+ * meetings first, largest summed travel distance first, and random orders) and the
+ * schedule with the smallest last timeslot is kept.
+ */
+
+public class Greedy {
+
+  Instance instance;
+  ConflictGraph graph;
+  int[] best; // best[i] is the timeslot of meeting i in the best schedule found
+  int makespan = Integer.MAX_VALUE; // last timeslot used by the best schedule
+
+  private int[] slot; // schedule under construction, -1 for meetings not yet scheduled
+  private long[] forbidden; // scratch space: forbidden intervals, packed as (from << 32) | to
+
+  Greedy(Instance instance, ConflictGraph graph) {
+      this.instance = instance;
+      this.graph = graph;
+      int n = instance.nMeetings;
+      slot = new int[n];
+      int maxDegree = 0;
+      for (int m = 0; m < n; m++) {
+          maxDegree = Math.max(maxDegree, graph.degree(m));
+      }
+      forbidden = new long[maxDegree];
+  }
+
+  // try the structured orders and then nRandom random orders
+  Greedy run(int nRandom, long seed) {
+      int n = instance.nMeetings;
+      Integer[] order = new Integer[n];
+      for (int m = 0; m < n; m++) order[m] = m;
+      schedule(order);
+
+      // most conflicting meetings first
+      final int[] degree = new int[n];
+      final int[] travel = new int[n];
+      for (int m = 0; m < n; m++) {
+          degree[m] = graph.degree(m);
+          for (int j : graph.neighbours(m)) {
+              travel[m] += distance(m, j);
+          }
+      }
+      Arrays.sort(order, (a, b) -> degree[b] != degree[a] ? degree[b] - degree[a] : a - b);
+      schedule(order);
+
+      // largest summed travel distance first
+      Arrays.sort(order, (a, b) -> travel[b] != travel[a] ? travel[b] - travel[a] : a - b);
+      schedule(order);
+
+      Random random = new Random(seed);
+      for (int r = 0; r < nRandom; r++) {
+          for (int i = n - 1; i > 0; i--) {
+              int k = random.nextInt(i + 1);
+              Integer tmp = order[i];
+              order[i] = order[k];
+              order[k] = tmp;
+          }
+          schedule(order);
+      }
+      return this;
+  }
+
+  // schedule the meetings in the given order, keep the schedule if it is the best so far
+  int schedule(Integer[] order) {
+      Arrays.fill(slot, -1);
+      int last = 0;
+      for (int m : order) {
+          slot[m] = earliest(m);
+          last = Math.max(last, slot[m]);
+          if (last >= makespan) return last; // cannot improve on the best schedule
+      }
+      makespan = last;
+      best = slot.clone();
+      return last;
+  }
+
+  // earliest timeslot for meeting m given the meetings scheduled so far
+  int earliest(int m) {
+      int k = 0;
+      for (int j : graph.neighbours(m)) {
+          if (slot[j] != -1) {
+              // |slot[m] - slot[j]| > distance, i.e. slot[m] is not in [slot[j] - d, slot[j] + d]
+              int d = distance(m, j);
+              forbidden[k++] = ((long) (slot[j] - d) << 32) | (slot[j] + d);
+          }
+      }
+      // sweep the intervals by increasing start, moving t past every interval containing it
+      Arrays.sort(forbidden, 0, k);
+      int t = 0;
+      for (int i = 0; i < k; i++) {
+          int from = (int) (forbidden[i] >> 32);
+          int to = (int) forbidden[i];
+          if (from > t) break;
+          t = Math.max(t, to + 1);
+      }
+      return t;
+  }
+
+  // travel distance used by the models for the pair (m1, m2)
+  int distance(int m1, int m2) {
+      return instance.distance(m1, m2);
+  }
+}
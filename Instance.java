@@ -0,0 +1,103 @@
+/*
+ * An instance of the meeting scheduling problem, as read from an input file:
+ *
+ *     n m T
+ *     0: attendance row of agent 0 (n values, 0 or 1)
+ *     ...
+ *     0: distance row of meeting 0 (n values)
+ *     ...
+ *
+ * The attendance matrix is kept bit-packed and the distance matrix as a flat upper
+ * triangle (see Attendance and Distances); the models read them through MeetingData.
+ */
+
+public class Instance implements MeetingData {
+
+  int nMeetings; // number of meetings to be scheduled
+  int mAgents; // the number of agents
+  int timeslots; // timeslots available
+  Attendance attendance; // which agents attend which meetings, bit-packed
+  Distances distance; // the time to travel between two meetings, upper triangle only
+
+  Instance(int nMeetings, int mAgents, int timeslots) {
+      this.nMeetings = nMeetings;
+      this.mAgents = mAgents;
+      this.timeslots = timeslots;
+      attendance = new Attendance(mAgents, nMeetings);
+      distance = new Distances(nMeetings);
+  }
+
+  public int nMeetings() {
+      return nMeetings;
+  }
+
+  public int mAgents() {
+      return mAgents;
+  }
+
+  public boolean attends(int a, int m) {
+      return attendance.get(a, m);
+  }
+
+  public int[] meetingsOf(int a) {
+      return attendance.meetingsOf(a);
+  }
+
+  public long[] attendees(int m) {
+      return attendance.attendees(m);
+  }
+
+  public int distance(int m1, int m2) {
+      return distance.get(m1, m2);
+  }
+
+  void setAttendance(int a, int m, boolean attends) {
+      attendance.set(a, m, attends);
+  }
+
+  // the travel time between m1 and m2, both ways
+  void setDistance(int m1, int m2, int d) {
+      distance.set(m1, m2, d);
+  }
+
+  // the instance restricted to the given meetings (in increasing order) and to the agents attending any of them
+  Instance sub(int[] meetings) {
+      int k = meetings.length;
+      int[] agents = new int[mAgents];
+      int nAgents = 0;
+      for (int a = 0; a < mAgents; a++) {
+          for (int m : meetings) {
+              if (attends(a, m)) {
+                  agents[nAgents++] = a;
+                  break;
+              }
+          }
+      }
+      Instance sub = new Instance(k, nAgents, timeslots);
+      for (int a = 0; a < nAgents; a++) {
+          for (int i = 0; i < k; i++) {
+              if (attends(agents[a], meetings[i])) sub.setAttendance(a, i, true);
+          }
+      }
+      for (int j = 0; j < k; j++) {
+          for (int i = 0; i < j; i++) {
+              sub.setDistance(i, j, distance(meetings[i], meetings[j]));
+          }
+      }
+      return sub;
+  }
+
+  /*
+   * Add a meeting nobody attends, with distances[i] the travel time between it and
+   * meeting i. Returns the number of the new meeting.
+   */
+  int addMeeting(int[] distances) {
+      int m = attendance.addMeeting();
+      distance.ensureCapacity(m + 1);
+      for (int i = 0; i < m; i++) {
+          distance.set(i, m, distances[i]);
+      }
+      nMeetings++;
+      return m;
+  }
+}
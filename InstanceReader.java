@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Reads meeting scheduling instances (see Instance for the file format).
+ *
+ * The file is parsed with a hand-written byte tokenizer straight into the compact
+ * stores of an Instance: small files are read through a buffer that is reused from one
+ * read to the next, large files are memory-mapped. No String or boxed Integer is
+ * created per token.
+ */
+
+public class InstanceReader {
+
+  static final int MAP_THRESHOLD = 1 << 20; // files of at least 1 MB are memory-mapped
+
+  private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024); // reused for small files
+  private ByteBuffer in; // the bytes being parsed
+  private String fname; // the file being parsed, for error messages
+
+  long bytesRead; // total number of bytes parsed by this reader
+  long parseNanos; // total time spent reading and parsing, in nanoseconds
+
+  // read an instance using a fresh reader
+  static Instance read(String fname) throws IOException {
+      return new InstanceReader().parse(fname);
+  }
+
+  Instance parse(String fname) throws IOException {
+      long start = System.nanoTime();
+      this.fname = fname;
+      try (FileChannel channel = FileChannel.open(Paths.get(fname), StandardOpenOption.READ)) {
+          long size = channel.size();
+          if (size >= MAP_THRESHOLD) {
+              MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+              in = mapped;
+          }
+          else {
+              if (buffer.capacity() < size) buffer = ByteBuffer.allocate((int) size);
+              buffer.clear();
+              while (buffer.position() < size && channel.read(buffer) >= 0);
+              buffer.flip();
+              in = buffer;
+          }
+          bytesRead += size;
+      }
+      Instance instance = parseBytes();
+      parseNanos += System.nanoTime() - start;
+      return instance;
+  }
+
+  // parse an instance given as text rather than as a file
+  Instance parseText(String text) throws IOException {
+      long start = System.nanoTime();
+      this.fname = "<inline>";
+      in = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+      bytesRead += in.remaining();
+      Instance instance = parseBytes();
+      parseNanos += System.nanoTime() - start;
+      return instance;
+  }
+
+  // parse the instance in the bytes of in
+  private Instance parseBytes() throws IOException {
+      /* process input */
+      int nMeetings = nextInt();
+      int mAgents = nextInt();
+      int timeslots = nextInt();
+      Instance instance = new Instance(nMeetings, mAgents, timeslots);
+
+      /* construct attendance matrix */
+      for (int i = 0; i < mAgents; i++) {
+          skipToken();
+          for (int j = 0; j < nMeetings; j++) {
+              if (nextInt() == 1) instance.setAttendance(i, j, true);
+          }
+      }
+
+      /* construct distance matrix, of which only the upper triangle is kept */
+      for (int i = 0; i < nMeetings; i++) {
+          skipToken();
+          for (int j = 0; j < nMeetings; j++) {
+              int d = nextInt();
+              if (j > i) instance.setDistance(i, j, d);
+          }
+      }
+      in = null;
+      return instance;
+  }
+
+  // parse throughput in megabytes per second over all files read so far
+  double throughput() {
+      return parseNanos == 0 ? 0 : (bytesRead / 1e6) / (parseNanos / 1e9);
+  }
+
+  // skip a whitespace separated token, such as the "i:" prefix of a row
+  private void skipToken() throws IOException {
+      skipWhitespace();
+      if (!in.hasRemaining()) throw error("unexpected end of file");
+      while (in.hasRemaining() && !isWhitespace(in.get(in.position()))) {
+          in.get();
+      }
+  }
+
+  private int nextInt() throws IOException {
+      skipWhitespace();
+      if (!in.hasRemaining()) throw error("unexpected end of file");
+      boolean negative = false;
+      byte b = in.get();
+      if (b == '-') {
+          negative = true;
+          if (!in.hasRemaining()) throw error("unexpected end of file");
+          b = in.get();
+      }
+      if (b < '0' || b > '9') throw error("integer expected");
+      int value = b - '0';
+      while (in.hasRemaining()) {
+          b = in.get(in.position());
+          if (b < '0' || b > '9') {
+              if (!isWhitespace(b)) throw error("integer expected");
+              break;
+          }
+          value = value * 10 + (b - '0');
+          in.get();
+      }
+      return negative ? -value : value;
+  }
+
+  private void skipWhitespace() {
+      while (in.hasRemaining() && isWhitespace(in.get(in.position()))) {
+          in.get();
+      }
+  }
+
+  private static boolean isWhitespace(byte b) {
+      return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+  }
+
+  private IOException error(String message) {
+      return new IOException(fname + ": " + message + " at byte " + in.position());
+  }
+
+  // parse each file given on the command line and report the parse throughput
+  public static void main(String[] args) throws IOException {
+      InstanceReader reader = new InstanceReader();
+      for (String fname : args) {
+          reader.parse(fname);
+      }
+      System.out.println("files: " + args.length + "   bytes: " + reader.bytesRead
+                      + "   time: " + reader.parseNanos / 1000000 + " ms"
+                      + "   throughput: " + String.format("%.1f", reader.throughput()) + " MB/s");
+  }
+}
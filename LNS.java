@@ -0,0 +1,138 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.chocosolver.solver.search.loop.monitors.SMF;
+
+/*
+ * Large Neighbourhood Search for Optimize on big instances.
+ *
+ * Starting from the greedy schedule, a neighbourhood of meetings is freed and solved
+ * again with every other meeting fixed (see SubModel), asking for a schedule that ends
+ * one timeslot earlier than the best one so far. The meetings in the last timeslot must
+ * move, so they are always freed. The rest of the neighbourhood is taken in turn from
+ *     - the meetings of one agent,
+ *     - the meetings in a window of consecutive timeslots,
+ *     - the critical travel chains: meetings that cannot move earlier because they are
+ *       exactly one travel time after a conflicting meeting, traced back from the end.
+ * Each sub-search is node limited; the neighbourhood grows when sub-searches prove that
+ * there is no better schedule, and shrinks when they run out of nodes.
+ *
+ *     java Optimize rProblems/100-50-10-9-03.txt 20 -lns
+ */
+
+public class LNS {
+
+  static final int NODE_LIMIT = 2000; // node limit of each sub-search
+  static final int MAX_IDLE = 1000; // without a time limit, stop after this many iterations without improvement
+
+  Instance instance;
+  ConflictGraph graph;
+  int timeLimit; // time limit in seconds, -1 if none
+  int lowerBound; // no schedule can end before this timeslot
+  Random random = new Random(0);
+
+  int[] schedule; // best schedule found so far
+  int makespan; // last timeslot used by the best schedule
+  int size = 20; // target number of free meetings
+  long iterations = 0;
+  long improvements = 0;
+  long nodes = 0;
+  long start;
+
+  LNS(Instance instance, int timeLimit) {
+      this.instance = instance;
+      this.timeLimit = timeLimit;
+      this.graph = new ConflictGraph(instance);
+      Greedy greedy = new Greedy(instance, graph).run(Optimize.GREEDY_ORDERS, 0);
+      schedule = greedy.best;
+      makespan = greedy.makespan;
+      lowerBound = new LowerBound(instance, graph).run().bound;
+  }
+
+  void search() {
+      start = System.currentTimeMillis();
+      long deadline = timeLimit == -1 ? Long.MAX_VALUE : start + timeLimit * 1000L;
+      long idle = 0;
+      while (makespan > lowerBound && System.currentTimeMillis() < deadline
+             && (timeLimit != -1 || idle < MAX_IDLE)) {
+          idle++;
+          iterations++;
+          int[] free = neighbourhood((int) (iterations % 3));
+          int[] attempt = schedule.clone();
+          SubModel sub = new SubModel(instance, graph, attempt, free, makespan - 1);
+          SMF.limitNode(sub.solver, NODE_LIMIT);
+          boolean improved = sub.solve();
+          nodes += sub.solver.getMeasures().getNodeCount();
+          if (improved) {
+              schedule = attempt;
+              makespan = 0;
+              for (int t : schedule) makespan = Math.max(makespan, t);
+              improvements++;
+              idle = 0;
+          }
+          else if (sub.empty || !sub.solver.hasReachedLimit()) {
+              size = Math.min(instance.nMeetings, size + 2); // proved: look further afield
+          }
+          else {
+              size = Math.max(5, size - 1); // too hard: smaller sub-problems
+          }
+      }
+  }
+
+  // the meetings to free: those in the last timeslot, plus a neighbourhood of the given kind
+  int[] neighbourhood(int kind) {
+      boolean[] in = new boolean[instance.nMeetings];
+      int[] free = new int[instance.nMeetings];
+      int k = 0;
+      for (int m = 0; m < instance.nMeetings; m++) {
+          if (schedule[m] == makespan) { in[m] = true; free[k++] = m; }
+      }
+      int limit = Math.max(size, k);
+      if (kind == 0 && instance.mAgents > 0) {
+          // meetings of one agent, then of another, until the neighbourhood is full
+          for (int tries = 0; tries < instance.mAgents && k < limit; tries++) {
+              for (int m : graph.meetingsOf(random.nextInt(instance.mAgents))) {
+                  if (k < limit && !in[m]) { in[m] = true; free[k++] = m; }
+              }
+          }
+      }
+      else if (kind == 1) {
+          // meetings in a window of timeslots
+          int from = random.nextInt(makespan + 1);
+          for (int t = from; t <= makespan && k < limit; t++) {
+              for (int m = 0; m < instance.nMeetings && k < limit; m++) {
+                  if (schedule[m] == t && !in[m]) { in[m] = true; free[k++] = m; }
+              }
+          }
+      }
+      else {
+          // critical chains, traced back from the meetings in the last timeslot
+          for (int i = 0; i < k && k < limit; i++) {
+              int m = free[i];
+              for (int j : graph.neighbours(m)) {
+                  if (k < limit && !in[j] && schedule[m] - schedule[j] == Travel.distance(instance, m, j) + 1) {
+                      in[j] = true;
+                      free[k++] = j;
+                  }
+              }
+          }
+      }
+      free = Arrays.copyOf(free, k);
+      Arrays.sort(free);
+      return free;
+  }
+
+  void result(PrintStream out) {
+      for (int i = 0; i < instance.nMeetings; i++) {
+          out.println(i + " " + schedule[i]);
+      }
+  }
+
+  void stats(PrintStream out) {
+      out.println("timeslots = " + makespan + (makespan == lowerBound ? " (optimal)" : "")
+                + "   lower bound: " + lowerBound
+                + "   iterations: " + iterations + "   improvements: " + improvements);
+      out.println("nodes: " + nodes + "   cpu: " + (System.currentTimeMillis() - start) / 1000f);
+  }
+}
@@ -0,0 +1,365 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Iterated tabu search for the meeting scheduling problem, for instances too large for
+ * the complete search of Optimize (thousands of meetings, hundreds of agents).
+ *
+ * The conflict graph is flattened into primitive arrays: the neighbours of meeting m are
+ * next[first[m]] .. next[first[m + 1] - 1], and gap[k] is the number of timeslots needed
+ * between m and next[k] (distance + 1). Starting from the greedy schedule, every worker
+ * asks for a schedule one timeslot shorter than the best so far: the meetings in the last
+ * timeslot are moved into the shorter horizon, and min-conflicts moves repair the travel
+ * conflicts this creates. Each move takes a random conflicting meeting to the timeslot
+ * with the fewest conflicts (found with a difference array over its neighbours), a random
+ * timeslot with probability NOISE, and the meeting may not go back to the timeslot it left
+ * for a while (tabu) unless that gives fewer conflicts than ever at this horizon. Moving
+ * a meeting updates the conflict counts of its neighbours only, so a move costs O(degree)
+ * and allocates nothing. Once the conflicts are gone the schedule is the new best one, and
+ * the horizon shrinks again. A worker that makes no progress for MAX_STALL moves starts
+ * again from the best schedule with a fraction PERTURBATION of its meetings moved at random.
+ *
+ * The workers run on all cores from different random seeds and share the best schedule:
+ * one that finds a shorter schedule lets the others move on to a shorter horizon too.
+ * The search stops at the time limit, when the lower bound is reached (see LowerBound),
+ * or, without a time limit, after MAX_IDLE perturbations without improvement.
+ *
+ *     java LocalSearch rProblems/100-50-10-9-03.txt [timeLimit] [-threads k] [-seed s]
+ *     java Optimize rProblems/100-50-10-9-03.txt 10 -ls 5
+ *
+ * The output is that of Optimize. With -ls s, Optimize runs local search for s seconds
+ * first, and starts its search from the schedule found as incumbent and upper bound,
+ * with the conflict graph and lower bound of the local search; the seconds spent count
+ * against Optimize's time limit. -ls is refused with -lns, -decompose, -portfolio and
+ * -dichotomy.
+ */
+
+public class LocalSearch {
+
+  static final int MAX_STALL = 20000; // moves without fewer conflicts before a worker is perturbed
+  static final int MAX_IDLE = 200; // without a time limit, perturbations without improvement before stopping
+  static final double NOISE = 0.05; // probability of a random move
+  static final int TABU_TENURE = 10; // a meeting stays off the timeslot it left for 10 to 20 moves
+  static final double PERTURBATION = 0.05; // fraction of the meetings moved at random by a perturbation
+
+  Instance instance;
+  ConflictGraph graph;
+  int nMeetings;
+  int[] first; // first[m]: index in next of the first neighbour of meeting m, first[nMeetings] = next.length
+  int[] next; // the neighbours of all meetings, meeting by meeting
+  int[] gap; // gap[k]: timeslots needed between a meeting and its neighbour next[k]
+  int lowerBound; // no schedule can end before this timeslot
+  int timeLimit = -1; // in seconds, -1 if none
+  int threads = Runtime.getRuntime().availableProcessors();
+  long seed = 0;
+
+  // the shared incumbent, guarded by this
+  int[] schedule; // the best schedule found so far
+  volatile int makespan; // last timeslot used by the best schedule
+  long improvements = 0;
+
+  volatile boolean stopped = false;
+  List<Worker> workers = new ArrayList<Worker>();
+  long start;
+  long millis;
+
+  LocalSearch(Instance instance, int timeLimit) {
+      this(instance, new ConflictGraph(instance), timeLimit);
+  }
+
+  LocalSearch(Instance instance, ConflictGraph graph, int timeLimit) {
+      this.instance = instance;
+      this.graph = graph;
+      this.timeLimit = timeLimit;
+      nMeetings = instance.nMeetings;
+
+      /* the conflict graph as flat arrays, with the travel gap of every edge */
+      first = new int[nMeetings + 1];
+      for (int m = 0; m < nMeetings; m++) first[m + 1] = first[m] + graph.degree(m);
+      next = new int[first[nMeetings]];
+      gap = new int[first[nMeetings]];
+      for (int m = 0; m < nMeetings; m++) {
+          int k = first[m];
+          for (int j : graph.neighbours(m)) {
+              next[k] = j;
+              gap[k++] = Travel.distance(instance, m, j) + 1;
+          }
+      }
+
+      Greedy greedy = new Greedy(instance, graph).run(Optimize.GREEDY_ORDERS, 0);
+      schedule = greedy.best;
+      makespan = greedy.makespan;
+      lowerBound = new LowerBound(instance, graph).run().bound;
+  }
+
+  void solve() throws Exception {
+      start = System.currentTimeMillis();
+      if (nMeetings == 0 || makespan <= lowerBound) {
+          millis = 0;
+          return;
+      }
+      long deadline = timeLimit == -1 ? Long.MAX_VALUE : start + timeLimit * 1000L;
+      for (int w = 0; w < threads; w++) workers.add(new Worker(w, deadline));
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      try {
+          List<Future<?>> running = new ArrayList<Future<?>>();
+          for (Worker w : workers) running.add(pool.submit(w));
+          for (Future<?> f : running) f.get();
+      }
+      finally {
+          stopped = true;
+          pool.shutdown();
+          millis = System.currentTimeMillis() - start;
+      }
+  }
+
+  // a schedule without conflicts that ends at timeslot end: keep it if it is the best one
+  synchronized void publish(int[] slot, int end) {
+      if (end < makespan) {
+          schedule = slot.clone();
+          makespan = end;
+          improvements++;
+      }
+  }
+
+  // copy the best schedule into slot, returns its last timeslot
+  synchronized int best(int[] slot) {
+      System.arraycopy(schedule, 0, slot, 0, nMeetings);
+      return makespan;
+  }
+
+  /*
+   * One search, from its own random seed
+   */
+  class Worker implements Runnable {
+      int id;
+      Random random;
+      long deadline;
+      int horizon; // last timeslot the meetings may use
+      int[] slot; // slot[m]: timeslot of meeting m
+      int[] conf; // conf[m]: number of neighbours of m within travel distance of it
+      int violations; // number of pairs of meetings within travel distance of each other
+      int[] conflicted; // the meetings with conflicts, in conflicted[0 .. nConflicted)
+      int[] position; // position[m]: index of m in conflicted, -1 if it has no conflict
+      int nConflicted;
+      int[] tabuSlot; // tabuSlot[m]: the timeslot meeting m left last
+      long[] tabuUntil; // tabuUntil[m]: the move after which m may go back to tabuSlot[m]
+      int[] cost; // scratch: difference array of the conflicts of each timeslot
+      long moves = 0;
+      long perturbations = 0;
+
+      Worker(int id, long deadline) {
+          this.id = id;
+          this.random = new Random(seed + id);
+          this.deadline = deadline;
+          slot = new int[nMeetings];
+          conf = new int[nMeetings];
+          conflicted = new int[nMeetings];
+          position = new int[nMeetings];
+          tabuSlot = new int[nMeetings];
+          tabuUntil = new long[nMeetings];
+          cost = new int[makespan + 2];
+      }
+
+      public void run() {
+          horizon = best(slot) - 1;
+          if (id > 0) perturb(); // the workers start from different schedules
+          else reset();
+          int fewest = violations; // fewest conflicts at this horizon
+          long stall = 0;
+          int idle = 0;
+          int seen = makespan;
+          while (!stopped && makespan > lowerBound) {
+              if ((moves & 255) == 0 && System.currentTimeMillis() >= deadline) break;
+              if (violations == 0) {
+                  int end = 0;
+                  for (int m = 0; m < nMeetings; m++) end = Math.max(end, slot[m]);
+                  publish(slot, end);
+              }
+              if (makespan <= horizon) {
+                  // a shorter schedule, here or by another worker: one timeslot less
+                  horizon = makespan - 1;
+                  squeeze();
+                  fewest = violations;
+                  stall = 0;
+              }
+              if (makespan < seen) {
+                  seen = makespan;
+                  idle = 0;
+              }
+              if (violations == 0) continue;
+              step(fewest);
+              if (violations < fewest) {
+                  fewest = violations;
+                  stall = 0;
+              }
+              else if (++stall > MAX_STALL) {
+                  if (timeLimit == -1 && ++idle > MAX_IDLE) break;
+                  perturb();
+                  fewest = violations;
+                  stall = 0;
+              }
+          }
+      }
+
+      // move a random conflicting meeting, to its best timeslot or at random
+      void step(int fewest) {
+          moves++;
+          int m = conflicted[random.nextInt(nConflicted)];
+          int t = random.nextDouble() < NOISE ? random.nextInt(horizon + 1) : bestSlot(m, fewest);
+          if (t != -1 && t != slot[m]) move(m, t);
+      }
+
+      /*
+       * The timeslot in [0, horizon] with the fewest conflicts for meeting m, other than
+       * its own, ties broken at random. A tabu timeslot is only taken if it leaves fewer
+       * conflicts than fewest. -1 if there is no such timeslot.
+       */
+      int bestSlot(int m, int fewest) {
+          Arrays.fill(cost, 0, horizon + 2, 0);
+          for (int k = first[m]; k < first[m + 1]; k++) {
+              int s = slot[next[k]];
+              int from = Math.max(0, s - gap[k] + 1);
+              int to = Math.min(horizon, s + gap[k] - 1);
+              if (from <= to) {
+                  cost[from]++;
+                  cost[to + 1]--;
+              }
+          }
+          int best = -1;
+          int bestCost = Integer.MAX_VALUE;
+          int ties = 0;
+          int c = 0;
+          boolean tabu = tabuUntil[m] > moves;
+          for (int t = 0; t <= horizon; t++) {
+              c += cost[t];
+              if (t == slot[m] || c > bestCost) continue;
+              if (tabu && t == tabuSlot[m] && violations - conf[m] + c >= fewest) continue;
+              if (c < bestCost) {
+                  best = t;
+                  bestCost = c;
+                  ties = 1;
+              }
+              else if (random.nextInt(++ties) == 0) {
+                  best = t;
+              }
+          }
+          return best;
+      }
+
+      // put meeting m at timeslot t, updating the conflicts of m and its neighbours
+      void move(int m, int t) {
+          int old = slot[m];
+          for (int k = first[m]; k < first[m + 1]; k++) {
+              int j = next[k];
+              boolean was = Math.abs(old - slot[j]) < gap[k];
+              boolean now = Math.abs(t - slot[j]) < gap[k];
+              if (was != now) {
+                  int d = now ? 1 : -1;
+                  conf[j] += d;
+                  conf[m] += d;
+                  violations += d;
+                  update(j);
+              }
+          }
+          slot[m] = t;
+          update(m);
+          tabuSlot[m] = old;
+          tabuUntil[m] = moves + TABU_TENURE + random.nextInt(TABU_TENURE + 1);
+      }
+
+      // keep meeting m in conflicted iff it has conflicts
+      void update(int m) {
+          if (conf[m] > 0 && position[m] == -1) {
+              position[m] = nConflicted;
+              conflicted[nConflicted++] = m;
+          }
+          else if (conf[m] == 0 && position[m] != -1) {
+              int last = conflicted[--nConflicted];
+              conflicted[position[m]] = last;
+              position[last] = position[m];
+              position[m] = -1;
+          }
+      }
+
+      // move the meetings after the horizon into it
+      void squeeze() {
+          for (int m = 0; m < nMeetings; m++) {
+              if (slot[m] > horizon) move(m, Math.max(0, bestSlot(m, Integer.MIN_VALUE)));
+          }
+      }
+
+      // start again from the best schedule, with some meetings moved at random
+      void perturb() {
+          perturbations++;
+          best(slot);
+          reset();
+          int k = Math.max(1, (int) (PERTURBATION * nMeetings));
+          for (int i = 0; i < k; i++) {
+              int m = random.nextInt(nMeetings);
+              move(m, random.nextInt(horizon + 1));
+          }
+      }
+
+      // count the conflicts of the current timeslots from scratch, and move them into the horizon
+      void reset() {
+          Arrays.fill(conf, 0);
+          Arrays.fill(position, -1);
+          Arrays.fill(tabuUntil, 0);
+          nConflicted = 0;
+          violations = 0;
+          for (int m = 0; m < nMeetings; m++) {
+              for (int k = first[m]; k < first[m + 1]; k++) {
+                  if (Math.abs(slot[m] - slot[next[k]]) < gap[k]) {
+                      conf[m]++;
+                      if (next[k] > m) violations++;
+                  }
+              }
+              update(m);
+          }
+          squeeze();
+      }
+  }
+
+  void result(PrintStream out) {
+      for (int i = 0; i < nMeetings; i++) {
+          out.println(i + " " + schedule[i]);
+      }
+  }
+
+  void stats(PrintStream out) {
+      long moves = 0;
+      long perturbations = 0;
+      for (Worker w : workers) {
+          moves += w.moves;
+          perturbations += w.perturbations;
+      }
+      out.println("timeslots = " + makespan + (makespan <= lowerBound ? " (optimal)" : "")
+                + "   lower bound: " + lowerBound + "   improvements: " + improvements);
+      out.println("moves: " + moves + "   perturbations: " + perturbations + "   threads: " + threads
+                + "   cpu: " + millis / 1000f);
+  }
+
+  public static void main(String[] args) throws Exception {
+    int timeLimit = -1;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seed = 0;
+    for (int i = 1; i < args.length; i++) {
+        if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+        else timeLimit = Integer.parseInt(args[i]);
+    }
+    LocalSearch search = new LocalSearch(InstanceReader.read(args[0]), timeLimit);
+    search.threads = threads;
+    search.seed = seed;
+    search.solve();
+    search.result(System.out);
+    search.stats(System.out);
+  }
+}
@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+/*
+ * Lower bound on the last timeslot of any valid schedule.
+ *
+ * The meetings of a clique of the conflict graph must all be at different timeslots,
+ * with enough time between any two of them to travel. Ordered by timeslot they form a
+ * path that visits every meeting of the clique once, where going from meeting i to
+ * meeting j costs distance + 1 timeslots. The first meeting is at timeslot 0 or later,
+ * so the last one is at least the length of the shortest such path.
+ *
+ * The meetings of one agent always form a clique; each of them is extended greedily
+ * with meetings that conflict with all of its members. The shortest path is computed
+ * exactly for small cliques and bounded below by a minimum spanning tree otherwise.
+ */
+
+public class LowerBound {
+
+  static final int EXACT_SIZE = 12; // largest clique whose shortest path is computed exactly
+
+  Instance instance;
+  ConflictGraph graph;
+  int bound = 0; // best lower bound found
+  int[] clique = new int[0]; // the clique that gives the bound
+
+  LowerBound(Instance instance, ConflictGraph graph) {
+      this.instance = instance;
+      this.graph = graph;
+  }
+
+  LowerBound run() {
+      for (int a = 0; a < instance.mAgents; a++) {
+          int[] c = extend(graph.meetingsOf(a));
+          int length = pathLength(c);
+          if (length > bound) {
+              bound = length;
+              clique = c;
+          }
+      }
+      return this;
+  }
+
+  // add meetings that conflict with every member, most conflicting meetings first
+  int[] extend(int[] c) {
+      if (c.length == 0) return c;
+      int size = c.length;
+      c = Arrays.copyOf(c, size + graph.degree(c[0]));
+      boolean added = true;
+      while (added) {
+          added = false;
+          int candidate = -1;
+          for (int m : graph.neighbours(c[0])) {
+              if (graph.degree(m) > (candidate == -1 ? -1 : graph.degree(candidate))
+                      && conflictsWithAll(m, c, size)) {
+                  candidate = m;
+              }
+          }
+          if (candidate != -1) {
+              c[size++] = candidate;
+              added = true;
+          }
+      }
+      return Arrays.copyOf(c, size);
+  }
+
+  private boolean conflictsWithAll(int m, int[] c, int size) {
+      for (int i = 0; i < size; i++) {
+          if (c[i] == m || graph.canBeParallel(m, c[i])) return false;
+      }
+      return true;
+  }
+
+  // lower bound on the shortest path through all meetings of the clique
+  int pathLength(int[] c) {
+      if (c.length <= 1) return 0;
+      if (c.length <= EXACT_SIZE) return shortestPath(c);
+      return spanningTree(c);
+  }
+
+  // cost of going from meeting i to meeting j in consecutive order
+  int cost(int i, int j) {
+      return instance.distance(i, j) + 1;
+  }
+
+  // exact shortest path visiting every meeting of c once (dynamic programming over subsets)
+  int shortestPath(int[] c) {
+      int k = c.length;
+      int[][] length = new int[1 << k][k]; // length[set][last]: shortest path through set ending at last
+      for (int[] row : length) Arrays.fill(row, Integer.MAX_VALUE);
+      for (int i = 0; i < k; i++) length[1 << i][i] = 0;
+      for (int set = 1; set < (1 << k); set++) {
+          for (int last = 0; last < k; last++) {
+              int l = length[set][last];
+              if (l == Integer.MAX_VALUE) continue;
+              for (int next = 0; next < k; next++) {
+                  if ((set & (1 << next)) != 0) continue;
+                  int extended = set | (1 << next);
+                  length[extended][next] = Math.min(length[extended][next], l + cost(c[last], c[next]));
+              }
+          }
+      }
+      int best = Integer.MAX_VALUE;
+      for (int last = 0; last < k; last++) {
+          best = Math.min(best, length[(1 << k) - 1][last]);
+      }
+      return best;
+  }
+
+  // weight of a minimum spanning tree of c, a path is a spanning tree so this bounds it from below
+  int spanningTree(int[] c) {
+      int k = c.length;
+      int[] dist = new int[k]; // cheapest edge from the tree to each meeting not in the tree
+      boolean[] inTree = new boolean[k];
+      Arrays.fill(dist, Integer.MAX_VALUE);
+      dist[0] = 0;
+      int weight = 0;
+      for (int step = 0; step < k; step++) {
+          int u = -1;
+          for (int i = 0; i < k; i++) {
+              if (!inTree[i] && (u == -1 || dist[i] < dist[u])) u = i;
+          }
+          inTree[u] = true;
+          weight += dist[u];
+          for (int i = 0; i < k; i++) {
+              if (!inTree[i]) dist[i] = Math.min(dist[i], cost(c[u], c[i]));
+          }
+      }
+      return weight;
+  }
+}
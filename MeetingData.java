@@ -0,0 +1,25 @@
+/*
+ * What the models need to know of an instance: which agents attend which meetings, and
+ * the travel distance between two meetings. Model builders (ConflictGraph, Travel, Greedy,
+ * LowerBound, Cache, ...) only go through these accessors, so the storage behind them
+ * can be as compact as it needs to be (see Attendance and Distances).
+ */
+
+public interface MeetingData {
+
+  int nMeetings();
+
+  int mAgents();
+
+  // true iff agent a attends meeting m
+  boolean attends(int a, int m);
+
+  // all meetings agent a attends, in increasing order
+  int[] meetingsOf(int a);
+
+  // attendees of meeting m as a bitset: bit a is set iff agent a attends m. Not to be modified
+  long[] attendees(int m);
+
+  // travel distance between meetings m1 and m2, as given by the upper triangle of the matrix; 0 if m1 == m2
+  int distance(int m1, int m2);
+}
@@ -1,6 +1,5 @@
-import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.PrintStream;
 import java.util.Arrays;
 
 import org.chocosolver.solver.*;
@@ -21,15 +20,22 @@ import org.chocosolver.solver.search.strategy.selectors.variables.ActivityBased;
 
 public class Optimize {
 
+  static final int GREEDY_ORDERS = 50; // number of random meeting orders tried by the greedy schedule
+
   // process input
   Solver solver;
   int nMeetings; // number of meetings to be scheduled
   int mAgents; // the number of agents
-  int[][] attendance; // container for the first matrix of the input file (each agent and his meetings attendance)
-  int[][] distance; // container for the second matrix of the input file (distance between meetings)
+  ConflictGraph graph; // which meetings cannot occur in parallel
+  Presolve presolve; // meeting windows and the agents whose constraints are posted
+  int minBound = 0;
   int maxBound = 0;
+  int[] warmStart; // a valid schedule, found greedily before search
   int timeLimit;
   String fname;
+  Instance instance;
+  Cache cache; // where earlier results are taken from and new ones recorded, null for none
+  LocalSearch local; // local search run beforehand, whose graph, bounds and schedule are reused, null for none
 
   /*
    * IntVar[] that contains all meetings (of length nMeetings). The value of meeting[i]
@@ -55,98 +61,151 @@ public class Optimize {
       optimize();
   }
 
+  Optimize(Instance instance, int timeLimit) {
+      this(instance, timeLimit, null);
+  }
+
+  Optimize(Instance instance, int timeLimit, Cache cache) {
+      this(instance, timeLimit, cache, null);
+  }
+
+  Optimize(Instance instance, int timeLimit, Cache cache, LocalSearch local) {
+      this.timeLimit = timeLimit;
+      this.cache = cache;
+      this.local = local;
+      optimize(instance);
+  }
+
+  // another copy of the model, with the graph, bounds, warm start and presolve of the given one
+  Optimize(Optimize model, int timeLimit) {
+      this.timeLimit = timeLimit;
+      instance = model.instance;
+      nMeetings = model.nMeetings;
+      mAgents = model.mAgents;
+      graph = model.graph;
+      presolve = model.presolve;
+      minBound = model.minBound;
+      maxBound = model.maxBound;
+      warmStart = model.warmStart;
+      build();
+  }
+
   private void optimize() throws IOException {
-    try (Scanner sc = new Scanner(new File(this.fname))) {
+      optimize(InstanceReader.read(this.fname));
+  }
 
+  private void optimize(Instance instance) {
       /* process input */
-      nMeetings = sc.nextInt();
-      mAgents = sc.nextInt();
-      sc.nextInt();
-
-      attendance = new int[mAgents][nMeetings]; // this is only needed to compute which meetings can be in parallel
-      distance = new int[nMeetings][nMeetings]; // this is used to apply the travel contraints
-
-      /* construct attendance matrix from input file */
-      for (int i = 0; i < mAgents; i++) {
-          int n = 0;
-          sc.next();
-          for (int j = 0; j < nMeetings; j++) {
-		      attendance[i][j] = sc.nextInt();
-          }
-      }    
+      this.instance = instance;
+      nMeetings = instance.nMeetings;
+      mAgents = instance.mAgents;
+
+      if (local != null) {
+          /* local search has built the graph and both bounds already, starting from the greedy schedule */
+          graph = local.graph;
+          maxBound = local.makespan;
+          warmStart = local.schedule;
+          minBound = Math.min(local.lowerBound, maxBound);
+      }
+      else {
+          graph = new ConflictGraph(instance);
 
-      /* construct distance matrix from input file*/
-      for (int i = 0; i < nMeetings; i++) {
-          sc.next();
-          for (int j = 0; j < nMeetings; j++) {
-              distance[i][j] = sc.nextInt();
+          /*
+           * build a schedule greedily, its last timeslot will be our timeslots max bound
+           * and the schedule itself is used as a warm start for the search
+           */
+          Greedy greedy = new Greedy(instance, graph).run(GREEDY_ORDERS, 0);
+          maxBound = greedy.makespan;
+          warmStart = greedy.best;
+
+          /*
+           * the shortest travel-respecting path through a clique of conflicting meetings
+           * gives our timeslots min bound. Once the incumbent reaches it the objective cut
+           * empties the domain of timeslots, so the search stops with optimality proved.
+           */
+          minBound = new LowerBound(instance, graph).run().bound;
+      }
+
+      /* start from what earlier runs on this instance have found */
+      if (cache != null) {
+          Cache.Entry entry = cache.get(instance);
+          if (entry != null) {
+              Validator validator = new Validator(instance, graph);
+              validator.window = false;
+              if (entry.schedule != null && entry.makespan < maxBound && validator.check(entry.schedule)) {
+                  maxBound = entry.makespan;
+                  warmStart = entry.schedule;
+              }
+              minBound = Math.min(Math.max(minBound, entry.lb), maxBound);
           }
       }
 
       /*
-       * find a path from meeting 0 to the last meeting + meeting
-       * durations. The result will be our timeslots max bound
+       * fix unattended meetings, drop implied agent constraints and narrow the windows
+       * of the meetings within maxBound; no meeting ends before its window starts
        */
-      maxBound = findPath(); 
+      presolve = new Presolve(instance, graph, maxBound);
+      if (Presolve.enabled) {
+          presolve.run();
+          minBound = Math.max(minBound, presolve.earliestEnd());
+      }
+
+      build();
+  }
 
+  // the model over the bounds, windows and warm start found so far
+  private void build() {
       solver = new Solver("meeting scheduling problem"); // create an instance of Solver
 
-      timeslots = VF.bounded("optimal timeslots", 0, maxBound, solver);
-      // value of meeting[i] is the timeslot in which meeting i occurs
-      meeting = VF.enumeratedArray("all meetings", nMeetings, 0, maxBound, solver);
-
-      // constraint that some meetings cannot be in parallel
-      for (int m1 = 0; m1 < nMeetings; m1 ++) {
-          solver.post(ICF.arithm(meeting[m1], "<=", timeslots));
-          for (int m2 = m1 + 1; m2 < nMeetings; m2++) {
-              boolean canbeparallel = canBeParallel(m1,m2);
-              if(!canbeparallel) {
-                /*
-                 * for each two meetings that cannot occur in parallel,
-                 * make sure that their distance is less than the difference
-                 * of their timeslots
-                 * i.e.: |meeting[m1] - meeting[m2]| > distance[m1][m2]
-                 */
-                Constraint eq1 = ICF.arithm(meeting[m1],"-",meeting[m2],">",distance[m1][m2]);
-                Constraint eq2 = ICF.arithm(meeting[m2],"-",meeting[m1],">",distance[m1][m2]);
-                solver.post(LCF.or(eq1,eq2));
-              }
-                
-          }
+      timeslots = VF.bounded("optimal timeslots", minBound, maxBound, solver);
+      // value of meeting[i] is the timeslot in which meeting i occurs, within its window
+      meeting = presolve.variables(solver);
+
+      /*
+       * for each two meetings that cannot occur in parallel,
+       * make sure that their distance is less than the difference
+       * of their timeslots
+       * i.e.: |meeting[m1] - meeting[m2]| > distance[m1][m2]
+       * posted as one constraint over the meetings of each agent,
+       * and meeting[m] <= timeslots for the meetings that may end after minBound
+       */
+      presolve.post(solver, meeting, timeslots);
+
+      /*
+       * order interchangeable meetings, and one pair of meetings against time reversal;
+       * the warm start is mapped to the equivalent schedule that meets this order
+       */
+      if (Symmetry.enabled) {
+          Symmetry symmetry = new Symmetry(instance, graph);
+          symmetry.post(solver, meeting);
+          warmStart = symmetry.canonical(warmStart, maxBound);
       }
-    }
-  }
+      warmStart = presolve.clamp(warmStart); // unattended meetings back at their fixed timeslot
 
-  // find the path and duration from meeting 0 to meeting nMeetings
-  // add the duration of each meeting (1)
-  // produces the maximum timeslots number that can be required for solving the problem
-  int findPath() {
-      int meetingsPath = 0;
-      for (int m1 = 0; m1 < nMeetings - 1; m1++) {
-          meetingsPath = meetingsPath + distance[m1][m1 + 1] + 1;
+      // the agent calendar view, channelled to meeting[]
+      if (AgentCalendar.enabled) {
+          new AgentCalendar(solver, meeting, instance, graph, maxBound);
       }
-      // System.out.println("path: " + meetingsPath);
-      return meetingsPath;
+
+      // dom/wdeg variable ordering, trying the greedy schedule's timeslot first
+      solver.set(IntStrategyFactory.domOverWDeg(meeting, 0, new WarmStart(meeting, warmStart)),
+                 IntStrategyFactory.lexico_LB(timeslots));
+
+      // unless another search is chosen on the command line
+      if (Strategies.selected != null) use(Strategies.selected);
   }
 
-  /* Checks whether meeting m1 and meeting m2 can occur in parallel
-   *     if yes: returns true
-   *     if no: returns false 
-   * meetings m1 and m2 can occur in parallel iff there does not exist any agent that has to
-   * attend both of them.
-   */
-  boolean canBeParallel(int m1, int m2) {
-      boolean notBothAttended = true;
-      for (int  i = 0; i < mAgents; i++) {
-          if(attendance[i][m1] == 1 && attendance[i][m2] == 1) {
-              return false;
-          }
-      }
-      return notBothAttended;
-  } 
+  // search with the given strategy, its warm start value selector tries the greedy schedule
+  void use(Strategies strategies) {
+      strategies.apply(solver, meeting, timeslots, instance, graph, warmStart);
+  }
 
   void result() {
+    search();
+    result(System.out);
+  }
 
+  void search() {
     // if the user has specified time limit, limit the time for solving the problem
     // to timeLimit miliseconds
     if (this.timeLimit != -1) {
@@ -155,27 +214,158 @@ public class Optimize {
     // find a solution for optimal number of timeslots between 0 and maxBound
     // ResolutionPolicy.MINIMIZE means that we try to minimize the value of timelsots
     solver.findOptimalSolution(ResolutionPolicy.MINIMIZE, timeslots);
+    if (cache != null) save();
+  }
+
+  // the best schedule found, the warm start if the search has found none
+  int[] schedule() {
+    return solver.getMeasures().getSolutionCount() > 0 ? Decompose.values(meeting) : warmStart;
+  }
+
+  // last timeslot of schedule(): the warm start ends at maxBound
+  int objective() {
+    if (solver.getMeasures().getSolutionCount() == 0) return maxBound;
+    return solver.getObjectiveManager().getBestSolutionValue().intValue();
+  }
+
+  // record the best schedule and bounds in the cache
+  void save() {
+    int[] schedule = schedule();
+    int lb = isOptimal() ? solver.getObjectiveManager().getBestSolutionValue().intValue() : minBound;
+    try {
+        cache.put(instance, new Cache.Entry(schedule, lb, isOptimal()));
+    }
+    catch (IOException e) {
+        System.err.println("cache: " + e);
+    }
+  }
+
+  void result(PrintStream out) {
+    int[] schedule = schedule();
     for (int i = 0; i < nMeetings; i++) {
-        System.out.println(i + " " + meeting[i].getValue()); // print solutions
+        out.println(i + " " + schedule[i]); // print solutions
     }
   }
 
   void stats() {
-    System.out.println(timeslots + " ["+ timeslots.getLB() +","+ timeslots.getUB() +"]");
-    System.out.println("nodes: " + solver.getMeasures().getNodeCount()
+    stats(System.out);
+  }
+
+  // true iff the search has finished without reaching the time limit, with a solution
+  boolean isOptimal() {
+    return !solver.hasReachedLimit() && solver.getMeasures().getSolutionCount() > 0;
+  }
+
+  void stats(PrintStream out) {
+    out.println(timeslots + " ["+ timeslots.getLB() +","+ timeslots.getUB() +"]");
+    out.println("bounds: [" + minBound + "," + maxBound + "]" + (isOptimal() ? "   proved optimal" : ""));
+    out.println("nodes: " + solver.getMeasures().getNodeCount()
                     + "   cpu: " + solver.getMeasures().getTimeCount());
   }
     
-  public static void main(String[] args) throws IOException {
+  public static void main(String[] args) throws Exception {
     Optimize msp;
-    if (args.length == 1 ) { // if timeLimit is specified
+    int timeLimit = -1;
+    int portfolio = 0; // number of portfolio workers, 0 for a single search
+    boolean decompose = false; // solve the components of the conflict graph separately
+    boolean lns = false; // large neighbourhood search instead of complete search
+    boolean dichotomy = false; // dichotomic search on the number of timeslots instead of branch and bound
+    int probe = -1; // time budget of each dichotomy probe in milliseconds, -1 to share the time left
+    int ls = 0; // seconds of local search for an incumbent before the complete search (within timeLimit), 0 for none
+    String trace = null; // file the search telemetry is written to, null for none
+    String stream = null; // where improving schedules are streamed ("-" for standard output), null for none
+    Cache cache = null; // cache of results of earlier runs
+    for (int i = 1; i < args.length; i++) {
+        if (args[i].equals("-portfolio")) portfolio = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-decompose")) decompose = true;
+        else if (args[i].equals("-lns")) lns = true;
+        else if (args[i].equals("-dichotomy")) dichotomy = true;
+        else if (args[i].equals("-probe")) probe = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-ls")) ls = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-trace")) trace = args[++i];
+        else if (args[i].equals("-stream")) stream = args[++i];
+        else if (args[i].equals("-cache")) cache = new Cache(args[++i]);
+        else if (args[i].equals("-nosym")) Symmetry.enabled = false;
+        else if (args[i].equals("-nopresolve")) Presolve.enabled = false;
+        else if (args[i].equals("-search")) Strategies.select().setVariables(args[++i]);
+        else if (args[i].equals("-value")) Strategies.select().setValues(args[++i]);
+        else if (args[i].equals("-restarts")) Strategies.select().setRestarts(args[++i]);
+        else if (args[i].equals("-calendar")) AgentCalendar.enabled = true;
+        else timeLimit = Integer.parseInt(args[i]); // if timeLimit is specified
+    }
+    if (ls > 0 && (lns || decompose || portfolio > 0)) {
+        throw new IllegalArgumentException("-ls cannot be combined with -lns, -decompose or -portfolio");
+    }
+    if (cache != null && (lns || decompose || portfolio > 0)) {
+        throw new IllegalArgumentException("-cache cannot be combined with -lns, -decompose or -portfolio");
+    }
+    if (trace != null && (lns || decompose || portfolio > 0)) {
+        throw new IllegalArgumentException("-trace cannot be combined with -lns, -decompose or -portfolio");
+    }
+    if (Strategies.selected != null && portfolio > 0) {
+        throw new IllegalArgumentException("-search, -value and -restarts cannot be combined with -portfolio, its workers have their own");
+    }
+    if (stream != null && (lns || decompose || portfolio > 0)) {
+        throw new IllegalArgumentException("-stream cannot be combined with -lns, -decompose or -portfolio");
+    }
+    if (lns) {
+        LNS search = new LNS(InstanceReader.read(args[0]), timeLimit);
+        search.search();
+        search.result(System.out);
+        search.stats(System.out);
+        return;
+    }
+    if (dichotomy) {
+        if (cache != null || stream != null || trace != null || ls > 0) {
+            throw new IllegalArgumentException("-dichotomy cannot be combined with -cache, -stream, -trace or -ls");
+        }
+        Dichotomy search = new Dichotomy(InstanceReader.read(args[0]), timeLimit);
+        if (search.msp.presolve.ran) System.err.println(search.msp.presolve);
+        search.probeLimit = probe;
+        search.search();
+        search.result(System.out);
+        search.stats(System.out);
+        return;
+    }
+    if (decompose) {
+        Decompose parts = new Decompose(InstanceReader.read(args[0]));
+        parts.timeLimit = timeLimit;
+        parts.run();
+        return;
+    }
+    if (portfolio > 0) {
+        Portfolio.run(InstanceReader.read(args[0]), timeLimit, portfolio);
+        return;
+    }
+    if (ls > 0) {
+        long begun = System.currentTimeMillis();
+        Instance instance = InstanceReader.read(args[0]);
+        LocalSearch search = new LocalSearch(instance, ls);
+        search.solve();
+        search.stats(System.err);
+        if (timeLimit != -1) {
+            // the time limit covers both searches, the complete one gets at least a second
+            timeLimit = Math.max(1, timeLimit - (int) ((System.currentTimeMillis() - begun) / 1000));
+        }
+        msp = new Optimize(instance, timeLimit, cache, search);
+    }
+    else if (cache != null) {
+        msp = new Optimize(InstanceReader.read(args[0]), timeLimit, cache);
+    }
+    else if (timeLimit == -1) {
         msp = new Optimize(args[0]);
     }
     else {
-        int timeLimit = Integer.parseInt(args[1]);
         msp = new Optimize(args[0], timeLimit);
     }
-        msp.result();
+    if (msp.presolve.ran) System.err.println(msp.presolve);
+    if (trace != null) {
+        new Telemetry(msp.solver, msp.timeslots, trace);
+    }
+    if (stream != null) {
+        SolutionStream.to(stream, msp.solver, msp.meeting, msp.timeslots);
+    }
+    msp.result();
     msp.stats();
 
   }
@@ -0,0 +1,178 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.chocosolver.solver.*;
+import org.chocosolver.solver.objective.ObjectiveManager;
+import org.chocosolver.solver.search.loop.monitors.*;
+import org.chocosolver.solver.variables.IntVar;
+
+/*
+ * Parallel portfolio for Optimize: several copies of the model are solved at once,
+ * one per worker thread, each with its own search strategy (see Strategies) and random seed.
+ * The strategies are those of STRATEGIES, so Optimize refuses -search, -value and -restarts
+ * with -portfolio.
+ *
+ * The greedy schedule, lower bound and presolve are computed once, by the first worker's
+ * model, and the other workers' models are built from them. The workers share one
+ * incumbent, the greedy schedule to begin with, so the result is never worse than that
+ * of Optimize. Whenever a worker improves the number of timeslots,
+ * every other worker tightens its objective cut to the new value at its next search node.
+ * The first worker that completes its search has proved the shared incumbent optimal,
+ * and then all the other workers are stopped.
+ *
+ *     java Optimize rProblems/40-10-20-9-00.txt 10 -portfolio 4
+ */
+
+public class Portfolio {
+
+  // strategies used by the workers, worker i uses STRATEGIES[i % STRATEGIES.length] (see Strategies)
+  static final Strategies[] STRATEGIES = {
+      new Strategies("default", null, null),
+      new Strategies("domOverWDeg", "min", null),
+      new Strategies("activity", null, null),
+      new Strategies("minDom", "min", null),
+      new Strategies("random", "random", "luby"),
+      new Strategies("impact", null, null),
+      new Strategies("conflicts", "earliest", null),
+      new Strategies("travel", "earliest", null),
+      new Strategies("busiest", "earliest", "geometric")
+  };
+
+  Instance instance;
+  int nWorkers;
+  int timeLimit; // time limit in seconds, -1 if none
+
+  // the shared incumbent, guarded by this
+  volatile int best = Integer.MAX_VALUE; // best number of timeslots found by any worker
+  int[] schedule; // schedule[i] is the timeslot of meeting i in the best solution
+  String bestBy; // name of the worker that found the best solution
+  volatile boolean proved = false; // true once a worker has proved the incumbent optimal
+
+  List<Worker> workers = new ArrayList<Worker>();
+
+  Portfolio(Instance instance, int nWorkers, int timeLimit) {
+      this.instance = instance;
+      this.nWorkers = nWorkers;
+      this.timeLimit = timeLimit;
+      for (int w = 0; w < nWorkers; w++) {
+          workers.add(new Worker(w));
+      }
+      Optimize first = workers.get(0).msp;
+      best = first.maxBound;
+      schedule = first.warmStart;
+      bestBy = "greedy";
+  }
+
+  /*
+   * One copy of the model, searched with one heuristic
+   */
+  class Worker implements IMonitorSolution, IMonitorOpenNode {
+      Optimize msp;
+      String heuristic;
+      long seed;
+
+      Worker(int id) {
+          msp = id == 0 ? new Optimize(instance, timeLimit) : new Optimize(workers.get(0).msp, timeLimit);
+          Strategies template = STRATEGIES[id % STRATEGIES.length];
+          Strategies strategies = new Strategies(template.variables, template.values, template.restarts);
+          strategies.seed = id;
+          heuristic = template.variables;
+          seed = id;
+          msp.use(strategies); // "default" keeps Optimize's own search
+          msp.solver.plugMonitor(this);
+      }
+
+      // a new incumbent: share it with the other workers
+      public void onSolution() {
+          synchronized (Portfolio.this) {
+              int value = msp.timeslots.getValue();
+              if (value < best) {
+                  best = value;
+                  schedule = new int[instance.nMeetings];
+                  for (int i = 0; i < instance.nMeetings; i++) {
+                      schedule[i] = msp.meeting[i].getValue();
+                  }
+                  bestBy = heuristic + "/" + seed;
+              }
+          }
+      }
+
+      // before each node, prune against the shared incumbent or stop if it is proved optimal
+      public void beforeOpenNode() {
+          Solver solver = msp.solver;
+          if (proved) {
+              solver.getSearchLoop().reachLimit();
+              return;
+          }
+          int shared = best;
+          if (shared != Integer.MAX_VALUE) {
+              // the cut is strict only once this worker has found a solution of its own
+              if (solver.getMeasures().getSolutionCount() == 0) shared--;
+              @SuppressWarnings("unchecked") // getObjectiveManager() returns the raw type
+              ObjectiveManager<IntVar, Integer> manager = solver.getObjectiveManager();
+              manager.updateBestUB(shared);
+          }
+      }
+
+      public void afterOpenNode() {}
+
+      void search() {
+          msp.search();
+          // a search that ran to completion proves that nothing beats the incumbent
+          if (!msp.solver.hasReachedLimit()) proved = true;
+      }
+  }
+
+  void solve() throws Exception {
+      ExecutorService pool = Executors.newFixedThreadPool(nWorkers);
+      try {
+          List<Future<?>> running = new ArrayList<Future<?>>();
+          for (final Worker w : workers) {
+              running.add(pool.submit(() -> w.search()));
+          }
+          for (Future<?> f : running) {
+              f.get();
+          }
+      }
+      finally {
+          pool.shutdown();
+      }
+  }
+
+  void result(PrintStream out) {
+      for (int i = 0; i < instance.nMeetings; i++) {
+          out.println(i + " " + schedule[i]);
+      }
+  }
+
+  void stats(PrintStream out) {
+      long nodes = 0;
+      float cpu = 0;
+      for (Worker w : workers) {
+          nodes += w.msp.solver.getMeasures().getNodeCount();
+          cpu = Math.max(cpu, w.msp.solver.getMeasures().getTimeCount());
+      }
+      out.println("timeslots = " + best + (proved ? " (optimal)" : "")
+                + "   workers: " + nWorkers + "   best by: " + bestBy);
+      out.println("nodes: " + nodes + "   cpu: " + cpu);
+  }
+
+  public static void main(String[] args) throws Exception {
+    int timeLimit = -1;
+    int nWorkers = Runtime.getRuntime().availableProcessors();
+    if (args.length > 1) timeLimit = Integer.parseInt(args[1]);
+    if (args.length > 2) nWorkers = Integer.parseInt(args[2]);
+    run(InstanceReader.read(args[0]), timeLimit, nWorkers);
+  }
+
+  static void run(Instance instance, int timeLimit, int nWorkers) throws Exception {
+    Portfolio portfolio = new Portfolio(instance, nWorkers, timeLimit);
+    portfolio.solve();
+    portfolio.result(System.out);
+    portfolio.stats(System.out);
+  }
+}
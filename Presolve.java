@@ -0,0 +1,308 @@
+import java.util.Arrays;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+
+/*
+ * Presolve for Solve and Optimize, run on the instance before the model is built.
+ *
+ *     - A meeting nobody attends conflicts with no other meeting: it is fixed at timeslot 0
+ *       and becomes a constant instead of a variable.
+ *     - The travel constraints of an agent whose meetings are all meetings of another agent
+ *       are implied by the other agent's, as the travel times only depend on the meetings:
+ *       they are not posted. Of agents with the same meetings only the first is kept.
+ *     - A pair of meetings that several kept agents attend is filtered by one of them, the
+ *       first; the others leave it to that agent, and only see it in their edge finding.
+ *     - Each meeting gets a window [lo, hi] within [0, horizon]. For every kept agent with
+ *       at most WINDOW_SIZE meetings, the earliest and latest timeslot of each meeting
+ *       are computed exactly from the shortest travel chains through the agent's other
+ *       meetings: some of them are before it, in a chain that starts no earlier than their
+ *       windows allow, the others after it, in a chain that ends within their windows
+ *       (dynamic programming over subsets, as in LowerBound). This is repeated over the
+ *       agents until no window changes, as the window of a meeting narrows the chains
+ *       through it for its other agents.
+ * Every schedule that ends by the horizon meets the windows, so no solution is lost; if
+ * some window is empty there is none (infeasible).
+ *
+ * Optimize raises the lower bound on its objective to the largest lo, and does not link
+ * the meetings whose hi is below that to the objective. Presolve is on by default; Solve
+ * and Optimize switch it off with -nopresolve, and report what it removed on stderr.
+ */
+
+public class Presolve {
+
+  static final int WINDOW_SIZE = 12; // largest agent whose windows are computed
+  static final int MAX_ROUNDS = 20; // passes over the agents before the windows are left as they are
+  static final int INF = Integer.MAX_VALUE / 2;
+
+  static boolean enabled = true; // presolve in Solve and Optimize
+
+  Instance instance;
+  ConflictGraph graph;
+  int horizon; // last timeslot a meeting may use
+  int[] lo; // lo[m]: earliest timeslot of meeting m
+  int[] hi; // hi[m]: latest timeslot of meeting m
+  boolean[] kept; // kept[a]: the travel constraints of agent a are posted
+  boolean infeasible = false; // true iff some window is empty
+  boolean ran = false; // true once run() has been called
+
+  // what presolve removed, for the report
+  int fixed = 0; // meetings fixed at a timeslot
+  int duplicates = 0; // agents with the same meetings as a kept agent
+  int subsets = 0; // agents whose meetings are all meetings of another agent
+  int rounds = 0; // passes over the agents
+  int links = 0; // objective links posted by post()
+  int linksDropped = 0; // objective links that are implied by the windows
+  long nanos;
+
+  Presolve(Instance instance, ConflictGraph graph, int horizon) {
+      this.instance = instance;
+      this.graph = graph;
+      this.horizon = horizon;
+      lo = new int[instance.nMeetings];
+      hi = new int[instance.nMeetings];
+      Arrays.fill(hi, horizon);
+      kept = new boolean[instance.mAgents];
+      Arrays.fill(kept, true);
+  }
+
+  Presolve run() {
+      long start = System.nanoTime();
+      ran = true;
+      if (horizon < 0) {
+          infeasible = instance.nMeetings > 0;
+      }
+      else {
+          fixUnattended();
+          dropDominated();
+          tightenWindows();
+      }
+      nanos = System.nanoTime() - start;
+      return this;
+  }
+
+  private void fixUnattended() {
+      for (int m = 0; m < instance.nMeetings; m++) {
+          if (graph.isUnattended(m)) {
+              hi[m] = 0;
+              fixed++;
+          }
+      }
+  }
+
+  private void dropDominated() {
+      for (int a = 0; a < instance.mAgents; a++) {
+          int[] mine = graph.meetingsOf(a);
+          if (mine.length < 2) continue; // no constraint to drop
+          for (int b = 0; b < instance.mAgents && kept[a]; b++) {
+              int[] theirs = graph.meetingsOf(b);
+              if (b == a || theirs.length < mine.length || (theirs.length == mine.length && b > a)) continue;
+              if (!within(mine, b)) continue;
+              kept[a] = false;
+              if (theirs.length == mine.length) duplicates++;
+              else subsets++;
+          }
+      }
+  }
+
+  // true iff agent b attends all the given meetings
+  private boolean within(int[] meetings, int b) {
+      for (int m : meetings) {
+          if (!graph.attends(b, m)) return false;
+      }
+      return true;
+  }
+
+  private void tightenWindows() {
+      boolean changed = true;
+      while (changed && !infeasible && rounds < MAX_ROUNDS) {
+          changed = false;
+          rounds++;
+          for (int a = 0; a < instance.mAgents && !infeasible; a++) {
+              int[] meetings = graph.meetingsOf(a);
+              if (kept[a] && meetings.length >= 2 && meetings.length <= WINDOW_SIZE) {
+                  changed |= tighten(meetings);
+              }
+          }
+      }
+  }
+
+  /*
+   * Narrow the windows of the meetings of one agent, true iff some window has changed.
+   * first[set * k + j]: earliest timeslot of meeting j after all the other meetings of set
+   * last[set * k + j]: latest timeslot of meeting j before all the other meetings of set
+   */
+  private boolean tighten(int[] c) {
+      int k = c.length;
+      int full = (1 << k) - 1;
+      int[] cost = new int[k * k];
+      for (int i = 0; i < k; i++) {
+          for (int j = 0; j < k; j++) {
+              if (i != j) cost[i * k + j] = Travel.distance(instance, c[i], c[j]) + 1;
+          }
+      }
+      int[] first = new int[(full + 1) * k];
+      int[] last = new int[(full + 1) * k];
+      Arrays.fill(first, INF);
+      Arrays.fill(last, -INF);
+      for (int j = 0; j < k; j++) {
+          first[(1 << j) * k + j] = lo[c[j]];
+          last[(1 << j) * k + j] = hi[c[j]];
+      }
+      for (int set = 1; set <= full; set++) {
+          for (int j = 0; j < k; j++) {
+              if ((set & (1 << j)) == 0 || set == (1 << j)) continue;
+              int rest = set & ~(1 << j);
+              int earliest = INF;
+              int latest = -INF;
+              for (int i = 0; i < k; i++) {
+                  if ((rest & (1 << i)) == 0) continue;
+                  int f = first[rest * k + i];
+                  if (f < INF) earliest = Math.min(earliest, f + cost[i * k + j]);
+                  int l = last[rest * k + i];
+                  if (l > -INF) latest = Math.max(latest, l - cost[j * k + i]);
+              }
+              earliest = Math.max(earliest, lo[c[j]]);
+              latest = Math.min(latest, hi[c[j]]);
+              if (earliest <= hi[c[j]]) first[set * k + j] = earliest;
+              if (latest >= lo[c[j]]) last[set * k + j] = latest;
+          }
+      }
+      boolean changed = false;
+      for (int j = 0; j < k; j++) {
+          int earliest = INF;
+          int latest = -INF;
+          // before: the meetings of set but j, after: the others
+          for (int set = 1 << j; set <= full; set = (set + 1) | (1 << j)) {
+              int f = first[set * k + j];
+              int l = last[((full & ~set) | (1 << j)) * k + j];
+              if (f <= l) {
+                  earliest = Math.min(earliest, f);
+                  latest = Math.max(latest, l);
+              }
+          }
+          if (earliest > latest) {
+              infeasible = true;
+              return changed;
+          }
+          int m = c[j];
+          if (earliest > lo[m] || latest < hi[m]) {
+              lo[m] = earliest;
+              hi[m] = latest;
+              changed = true;
+          }
+      }
+      return changed;
+  }
+
+  // the last timeslot is at least the latest lo
+  int earliestEnd() {
+      int end = 0;
+      for (int m = 0; m < instance.nMeetings; m++) end = Math.max(end, lo[m]);
+      return end;
+  }
+
+  // the meeting variables, a constant for each meeting whose window is a single timeslot
+  IntVar[] variables(Solver solver) {
+      IntVar[] meeting = new IntVar[instance.nMeetings];
+      for (int m = 0; m < instance.nMeetings; m++) {
+          String name = "all meetings[" + m + "]";
+          meeting[m] = lo[m] == hi[m] ? VF.fixed(name, lo[m], solver) : VF.enumerated(name, lo[m], hi[m], solver);
+      }
+      return meeting;
+  }
+
+  /*
+   * Post the travel constraints of the kept agents, and link every meeting that may end
+   * after the objective's lower bound to the objective (null for none).
+   */
+  void post(Solver solver, IntVar[] meeting, IntVar objective) {
+      links = 0; // counted for the last model only
+      linksDropped = 0;
+      if (infeasible) {
+          solver.post(ICF.FALSE(solver));
+          return;
+      }
+      for (int a = 0; a < instance.mAgents; a++) {
+          if (kept[a]) Travel.post(solver, meeting, instance, graph.meetingsOf(a), owned(a), "agent " + a);
+      }
+      if (objective == null) return;
+      for (int m = 0; m < instance.nMeetings; m++) {
+          if (hi[m] <= objective.getLB()) {
+              linksDropped++;
+          }
+          else {
+              solver.post(ICF.arithm(meeting[m], "<=", objective));
+              links++;
+          }
+      }
+  }
+
+  // the schedule with every timeslot moved into its window
+  int[] clamp(int[] schedule) {
+      int[] s = schedule.clone();
+      for (int m = 0; m < s.length; m++) s[m] = Math.max(lo[m], Math.min(hi[m], s[m]));
+      return s;
+  }
+
+  /*
+   * owned[i][j]: the pair of the i-th and j-th meetings of kept agent a is filtered by a,
+   * as no kept agent before a attends both.
+   */
+  boolean[][] owned(int a) {
+      int[] c = graph.meetingsOf(a);
+      int k = c.length;
+      boolean[][] owned = new boolean[k][k];
+      for (int i = 0; i < k; i++) {
+          for (int j = i + 1; j < k; j++) {
+              boolean mine = true;
+              for (int b = 0; b < a && mine; b++) {
+                  if (kept[b] && graph.attends(b, c[i]) && graph.attends(b, c[j])) mine = false;
+              }
+              owned[i][j] = owned[j][i] = mine;
+          }
+      }
+      return owned;
+  }
+
+  // number of pairs of meetings filtered by the travel constraints of all agents, or of the kept agents
+  private long pairs(boolean all) {
+      long pairs = 0;
+      for (int a = 0; a < instance.mAgents; a++) {
+          long k = graph.meetingsOf(a).length;
+          if (all) pairs += k * (k - 1) / 2;
+          else if (kept[a] && k >= 2) pairs += Travel.count(owned(a));
+      }
+      return pairs;
+  }
+
+  // number of agents with a travel constraint, of all agents or of the kept ones as posted
+  private int agents(boolean all) {
+      int agents = 0;
+      for (int a = 0; a < instance.mAgents; a++) {
+          int k = graph.meetingsOf(a).length;
+          if (all ? k >= 2 : kept[a] && Travel.posts(k, owned(a))) agents++;
+      }
+      return agents;
+  }
+
+  @Override
+  public String toString() {
+      int n = instance.nMeetings;
+      long values = 0;
+      for (int m = 0; m < n; m++) values += Math.max(0, hi[m] - lo[m] + 1);
+      String s = "presolve" + (infeasible ? ": no schedule ends by timeslot " + horizon : "") + "\n"
+               + "  variables: " + n + " -> " + (n - fixed) + " (" + fixed + " unattended meetings fixed)\n"
+               + "  domain values: " + (long) n * (horizon + 1) + " -> " + values
+               + " (windows of " + WINDOW_SIZE + " meetings or fewer per agent, " + rounds + " rounds)\n"
+               + "  agent constraints: " + agents(true) + " -> " + agents(false)
+               + " (" + duplicates + " duplicate, " + subsets + " subset agents dropped)"
+               + "   travel pairs: " + pairs(true) + " -> " + pairs(false);
+      if (links + linksDropped > 0) {
+          s += "\n  objective links: " + (links + linksDropped) + " -> " + links;
+      }
+      return s + "\n  time: " + nanos / 1000000 + " ms";
+  }
+}
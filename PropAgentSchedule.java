@@ -0,0 +1,179 @@
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.util.ESat;
+
+/*
+ * Propagator for the calendar of one agent: the agent's meetings are at pairwise
+ * distinct timeslots, with setup times in between that depend on the sequence
+ * (going from meeting i to meeting j takes cost[i][j] = distance + 1 timeslots).
+ *
+ * Every pair is filtered as in PropTravel, except the pairs another agent's propagator
+ * filters already (see Presolve), which only edge finding sees. Edge finding looks at every
+ * time window [a, b] made of an earliest start and a latest start, and the set W of the
+ * meetings that must be inside it. The meetings of W need a path through all of them,
+ * and each meeting but the last of that path pays at least its cheapest setup time:
+ *     - if that does not fit in b - a timeslots, the window is overloaded and the node fails;
+ *     - if adding another meeting i to W would not fit unless i comes after all of W, then
+ *       i is not before the earliest end of W plus the cheapest setup time from W to i;
+ *     - symmetrically, if i must come before all of W, it is not after the latest start
+ *       of W minus the cheapest setup time from i to W.
+ */
+
+public class PropAgentSchedule extends Propagator<IntVar> {
+
+  static final int EDGE_FINDING_SIZE = 64; // edge finding is skipped for agents with more meetings
+
+  final int[][] cost; // cost[i][j]: timeslots from the start of meeting i to the start of meeting j
+  final boolean[][] owned; // owned[i][j]: the pair of meetings i, j is filtered here, null for every pair
+  final int[] cheapest; // cheapest[i]: smallest cost from meeting i to another meeting of the agent
+  final int dearest; // largest of cheapest[]
+  final int[] lb, ub; // scratch: the bounds of the meetings during edge finding
+  final int[] from, to; // scratch: the distinct earliest and latest starts, the ends of the windows
+
+  PropAgentSchedule(IntVar[] meetings, int[][] cost) {
+      this(meetings, cost, null);
+  }
+
+  PropAgentSchedule(IntVar[] meetings, int[][] cost, boolean[][] owned) {
+      super(meetings, meetings.length <= 3 ? PropagatorPriority.TERNARY : PropagatorPriority.QUADRATIC, false);
+      this.cost = cost;
+      this.owned = owned;
+      int k = meetings.length;
+      cheapest = new int[k];
+      for (int i = 0; i < k; i++) {
+          cheapest[i] = Integer.MAX_VALUE;
+          for (int j = 0; j < k; j++) {
+              if (i != j) cheapest[i] = Math.min(cheapest[i], cost[i][j]);
+          }
+      }
+      int d = 0;
+      for (int i = 0; i < k; i++) d = Math.max(d, cheapest[i]);
+      dearest = d;
+      lb = new int[k];
+      ub = new int[k];
+      from = new int[k];
+      to = new int[k];
+  }
+
+  @Override
+  protected int getPropagationConditions(int vIdx) {
+      return IntEventType.boundAndInst();
+  }
+
+  @Override
+  public void propagate(int evtmask) throws ContradictionException {
+      int k = vars.length;
+      do {
+          boolean changed = true;
+          while (changed) {
+              changed = false;
+              for (int i = 0; i < k; i++) {
+                  for (int j = i + 1; j < k; j++) {
+                      if (owned != null && !owned[i][j]) continue;
+                      changed |= PropTravel.filter(vars[i], vars[j], cost[i][j] - 1, this);
+                      changed |= PropTravel.filter(vars[j], vars[i], cost[i][j] - 1, this);
+                  }
+              }
+          }
+      } while (k <= EDGE_FINDING_SIZE && edgeFinding());
+  }
+
+  // fail on an overloaded window, and move the bounds of the meetings that must be first or last; true iff a bound moved
+  private boolean edgeFinding() throws ContradictionException {
+      int k = vars.length;
+      int starts = 0;
+      int ends = 0;
+      for (int i = 0; i < k; i++) {
+          lb[i] = vars[i].getLB();
+          ub[i] = vars[i].getUB();
+          starts = addDistinct(from, starts, lb[i]);
+          ends = addDistinct(to, ends, ub[i]);
+      }
+      boolean changed = false;
+      for (int s = 0; s < starts; s++) {
+          int a = from[s];
+          for (int e = 0; e < ends; e++) {
+              int b = to[e];
+              if (b < a) continue;
+              int total = 0; // summed cheapest setup times of the meetings inside [a, b]
+              int largest = 0;
+              int inside = 0;
+              for (int i = 0; i < k; i++) {
+                  if (lb[i] >= a && ub[i] <= b) {
+                      total += cheapest[i];
+                      largest = Math.max(largest, cheapest[i]);
+                      inside++;
+                  }
+              }
+              if (inside == 0) continue;
+              int setup = total - largest; // least length of a path through the meetings inside
+              if (inside > 1 && setup > b - a) {
+                  contradiction(null, "overloaded window [" + a + "," + b + "]");
+              }
+              if (setup + dearest <= b - a) continue; // one more meeting fits in the window anyway
+              for (int i = 0; i < k; i++) {
+                  if (lb[i] >= a && ub[i] <= b) continue; // inside
+                  int with = total + cheapest[i];
+                  if (with - largest > b - Math.min(a, lb[i])) {
+                      // i cannot come before any meeting inside: it comes after all of them
+                      if (vars[i].updateLowerBound(a + setup + cheapestTo(i, a, b), this)) {
+                          lb[i] = vars[i].getLB();
+                          changed = true;
+                      }
+                  }
+                  if (with - Math.max(largest, cheapest[i]) > Math.max(b, ub[i]) - a) {
+                      // i cannot come after any meeting inside: it comes before all of them
+                      if (vars[i].updateUpperBound(b - setup - cheapestFrom(i, a, b), this)) {
+                          ub[i] = vars[i].getUB();
+                          changed = true;
+                      }
+                  }
+              }
+          }
+      }
+      return changed;
+  }
+
+  // add value to values[0 .. size) unless it is there already, returns the new size
+  private static int addDistinct(int[] values, int size, int value) {
+      for (int i = 0; i < size; i++) {
+          if (values[i] == value) return size;
+      }
+      values[size] = value;
+      return size + 1;
+  }
+
+  // smallest cost from a meeting inside [a, b] to meeting i
+  private int cheapestTo(int i, int a, int b) {
+      int c = Integer.MAX_VALUE;
+      for (int j = 0; j < vars.length; j++) {
+          if (lb[j] >= a && ub[j] <= b) c = Math.min(c, cost[j][i]);
+      }
+      return c;
+  }
+
+  // smallest cost from meeting i to a meeting inside [a, b]
+  private int cheapestFrom(int i, int a, int b) {
+      int c = Integer.MAX_VALUE;
+      for (int j = 0; j < vars.length; j++) {
+          if (lb[j] >= a && ub[j] <= b) c = Math.min(c, cost[i][j]);
+      }
+      return c;
+  }
+
+  @Override
+  public ESat isEntailed() {
+      boolean entailed = true;
+      for (int i = 0; i < vars.length; i++) {
+          for (int j = i + 1; j < vars.length; j++) {
+              ESat pair = PropTravel.entailed(vars[i], vars[j], cost[i][j] - 1);
+              if (pair == ESat.FALSE) return ESat.FALSE;
+              if (pair == ESat.UNDEFINED) entailed = false;
+          }
+      }
+      return entailed ? ESat.TRUE : ESat.UNDEFINED;
+  }
+}
@@ -0,0 +1,82 @@
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.util.ESat;
+
+/*
+ * Propagator for |x - y| > d, the travel constraint between two meetings that
+ * cannot occur in parallel.
+ *
+ * A value v of x has a support in y iff y can be at most v - d - 1 or at least v + d + 1,
+ * so every value in [y.UB - d, y.LB + d] is removed from x (and symmetrically for y).
+ * Once y is instantiated this removes exactly the timeslots within travel distance of y.
+ */
+
+public class PropTravel extends Propagator<IntVar> {
+
+  final int d;
+
+  PropTravel(IntVar x, IntVar y, int d) {
+      super(new IntVar[]{x, y}, PropagatorPriority.BINARY, false);
+      this.d = d;
+  }
+
+  @Override
+  protected int getPropagationConditions(int vIdx) {
+      return IntEventType.boundAndInst();
+  }
+
+  @Override
+  public void propagate(int evtmask) throws ContradictionException {
+      IntVar x = vars[0];
+      IntVar y = vars[1];
+      boolean changed = true;
+      while (changed) {
+          changed = filter(x, y, d, this);
+          changed |= filter(y, x, d, this);
+      }
+      if (x.getUB() < y.getLB() - d || y.getUB() < x.getLB() - d) {
+          setPassive(); // the two meetings are far enough apart whatever happens
+      }
+  }
+
+  // remove from x the values without support in y, true iff the domain of x has changed
+  static boolean filter(IntVar x, IntVar y, int d, Propagator<IntVar> cause) throws ContradictionException {
+      int from = y.getUB() - d;
+      int to = y.getLB() + d;
+      return from <= to && remove(x, from, to, cause);
+  }
+
+  // remove the values in [from, to] from the domain of x, true iff it has changed
+  static boolean remove(IntVar x, int from, int to, Propagator<IntVar> cause) throws ContradictionException {
+      if (from <= x.getLB()) return x.updateLowerBound(to + 1, cause);
+      if (to >= x.getUB()) return x.updateUpperBound(from - 1, cause);
+      boolean changed = false;
+      for (int v = x.nextValue(from - 1); v <= to; v = x.nextValue(v)) {
+          changed |= x.removeValue(v, cause);
+      }
+      return changed;
+  }
+
+  @Override
+  public ESat isEntailed() {
+      return entailed(vars[0], vars[1], d);
+  }
+
+  static ESat entailed(IntVar x, IntVar y, int d) {
+      if (x.getUB() < y.getLB() - d || y.getUB() < x.getLB() - d) {
+          return ESat.TRUE;
+      }
+      if (x.isInstantiated() && y.isInstantiated()) {
+          return ESat.FALSE; // both instantiated and not far enough apart
+      }
+      return ESat.UNDEFINED;
+  }
+
+  @Override
+  public String toString() {
+      return "|" + vars[0].getName() + " - " + vars[1].getName() + "| > " + d;
+  }
+}
@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/*
+ * Keeps a schedule up to date while the instance changes.
+ *
+ * A Reschedule holds an instance, its conflict graph and a valid schedule, and accepts
+ * changes: an agent joins or leaves a meeting, a meeting is added, a travel distance
+ * or the number of timeslots changes. After a change only the meetings whose
+ * constraints may now be violated are checked. If the schedule is no longer valid,
+ * those meetings and their conflicting meetings are re-opened and solved again with
+ * everything else fixed (see SubModel), widening the neighbourhood a few times before
+ * falling back to solving the whole instance.
+ *
+ *     Reschedule calendar = new Reschedule(InstanceReader.read("problems/problem01.txt"));
+ *     calendar.addAttendance(3, 7);
+ *     calendar.setDistance(7, 12, 3);
+ *     int[] schedule = calendar.schedule;
+ */
+
+public class Reschedule {
+
+  static final int MAX_RADIUS = 3; // widest neighbourhood tried before a full solve
+
+  Instance instance;
+  ConflictGraph graph;
+  int[] schedule; // schedule[i] is the timeslot of meeting i, null if there is no solution
+
+  int repairs = 0; // number of changes fixed by a local repair
+  int fullSolves = 0; // number of changes that needed a full solve
+
+  // solve the instance from scratch, then follow its changes
+  Reschedule(Instance instance) {
+      this.instance = instance;
+      this.graph = new ConflictGraph(instance);
+      fullSolve();
+  }
+
+  // follow the changes of an instance, starting from a known valid schedule
+  Reschedule(Instance instance, int[] schedule) {
+      this.instance = instance;
+      this.graph = new ConflictGraph(instance);
+      this.schedule = schedule.clone();
+  }
+
+  // agent a now attends meeting m, returns true iff the schedule is valid
+  boolean addAttendance(int a, int m) {
+      instance.setAttendance(a, m, true);
+      graph.setAttendance(a, m, true);
+      return repair(new int[]{m});
+  }
+
+  // agent a no longer attends meeting m, which only removes constraints
+  boolean removeAttendance(int a, int m) {
+      instance.setAttendance(a, m, false);
+      graph.setAttendance(a, m, false);
+      return schedule != null || fullSolve();
+  }
+
+  // add a meeting attended by the given agents, returns its number
+  int addMeeting(int[] distances, int... agents) {
+      int m = instance.addMeeting(distances);
+      graph.addMeeting();
+      for (int a : agents) {
+          instance.setAttendance(a, m, true);
+          graph.setAttendance(a, m, true);
+      }
+      if (schedule != null) {
+          schedule = Arrays.copyOf(schedule, instance.nMeetings);
+          schedule[m] = 0;
+      }
+      repair(new int[]{m});
+      return m;
+  }
+
+  // the travel time between meetings m1 and m2 is now d, returns true iff the schedule is valid
+  boolean setDistance(int m1, int m2, int d) {
+      instance.setDistance(m1, m2, d);
+      return repair(new int[]{Math.min(m1, m2), Math.max(m1, m2)});
+  }
+
+  // the timeslots available are now [0, timeslots), returns true iff the schedule is valid
+  boolean setTimeslots(int timeslots) {
+      instance.timeslots = timeslots;
+      if (schedule == null) return fullSolve();
+      int k = 0;
+      int[] late = new int[instance.nMeetings];
+      for (int m = 0; m < instance.nMeetings; m++) {
+          if (schedule[m] >= timeslots) late[k++] = m;
+      }
+      return repair(Arrays.copyOf(late, k));
+  }
+
+  /*
+   * Make the schedule valid again after the constraints of the changed meetings
+   * have changed. Returns true iff a valid schedule was found.
+   */
+  boolean repair(int[] changed) {
+      if (schedule == null) return fullSolve(); // the instance had no solution before the change
+      if (isValid(changed)) return true;
+      int[] free = changed;
+      for (int radius = 1; radius <= MAX_RADIUS; radius++) {
+          free = widen(free);
+          int[] attempt = schedule.clone();
+          SubModel sub = new SubModel(instance, graph, attempt, free, instance.timeslots - 1);
+          if (sub.solve()) {
+              schedule = attempt;
+              repairs++;
+              return true;
+          }
+      }
+      return fullSolve();
+  }
+
+  // true iff the given meetings are within the time window and far enough from their conflicts
+  boolean isValid(int[] meetings) {
+      for (int m : meetings) {
+          if (schedule[m] < 0 || schedule[m] >= instance.timeslots) return false;
+          for (int j : graph.neighbours(m)) {
+              if (Math.abs(schedule[m] - schedule[j]) <= Travel.distance(instance, m, j)) return false;
+          }
+      }
+      return true;
+  }
+
+  // the given meetings and all the meetings they conflict with, in increasing order
+  int[] widen(int[] meetings) {
+      boolean[] in = new boolean[instance.nMeetings];
+      int k = 0;
+      int[] result = new int[instance.nMeetings];
+      for (int m : meetings) {
+          if (!in[m]) { in[m] = true; result[k++] = m; }
+          for (int j : graph.neighbours(m)) {
+              if (!in[j]) { in[j] = true; result[k++] = j; }
+          }
+      }
+      result = Arrays.copyOf(result, k);
+      Arrays.sort(result);
+      return result;
+  }
+
+  private boolean fullSolve() {
+      fullSolves++;
+      Solve msp = new Solve(instance);
+      if (msp.solve()) {
+          schedule = Decompose.values(msp.meeting);
+          return true;
+      }
+      schedule = null;
+      return false;
+  }
+}
@@ -0,0 +1,334 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.loop.monitors.IMonitorOpenNode;
+import org.chocosolver.solver.search.loop.monitors.SMF;
+
+/*
+ * Long running solver: one JVM, kept warm, answers many requests, over standard input
+ * and output or over a socket on localhost.
+ *
+ *     java Server -threads 4 -queue 64 -limit 5000 -warmup rProblems/20-10-20-9-00.txt
+ *     java Server -port 7777
+ *
+ * Requests are lines; the answer to a request comes back when it is done, so answers
+ * to different requests may come back in any order and carry the id of their request:
+ *
+ *     SOLVE <id> <file> [limit]       Solve the instance in a file
+ *     OPTIMIZE <id> <file> [limit]    Optimize it
+ *     SOLVE <id> - [limit]            the instance follows inline, up to a line END
+ *     CANCEL <id>                     stop a request, it is answered as cancelled
+ *     PING                            answered with PONG
+ *     QUIT                            answer the requests taken, then close the connection
+ *
+ * limit is a time limit in milliseconds (the server's -limit by default). The answer is
+ *
+ *     RESULT <id> <status> <objective> <milliseconds since the request was read>
+ *     0 3
+ *     ...                             the schedule, if one was found
+ *     nodes: 21   cpu: 0.004
+ *     END
+ *
+ * where the status is feasible, optimal, infeasible, unknown (limit reached), cancelled or
+ * error, and the objective is the number of timeslots found by Optimize (-1 otherwise).
+ * OPTIMIZE answers with its greedy schedule, as feasible, if the search finds none in time.
+ * Requests run on a pool of -threads workers with a queue of -queue requests; when the
+ * queue is full a request is answered BUSY <id> straight away and should be sent again later.
+ * Ids belong to the connection that sent them: clients may use the same ids, and a client
+ * can only cancel its own requests.
+ */
+
+public class Server {
+
+  int threads = Runtime.getRuntime().availableProcessors(); // worker threads
+  int queue = 64; // requests waiting for a worker, beyond that requests are refused
+  int limit = 10000; // default time limit of a request in milliseconds
+  ThreadPoolExecutor pool;
+  // requests queued or running, by connection (the writer of its answers) and id
+  Map<PrintWriter, Map<String, Job>> jobs = new ConcurrentHashMap<PrintWriter, Map<String, Job>>();
+
+  /*
+   * One request: the search stops at its time limit, or at the next node once cancelled
+   */
+  class Job implements Runnable, IMonitorOpenNode {
+      String id;
+      boolean optimize; // Optimize rather than Solve
+      Instance instance;
+      int limit; // milliseconds
+      PrintWriter out; // where the answer goes
+      long received = System.nanoTime();
+      volatile boolean cancelled = false;
+      Solver solver;
+
+      public void run() {
+          String status = "error";
+          int objective = -1;
+          int[] schedule = null;
+          try {
+              if (cancelled) {
+                  status = "cancelled";
+                  return;
+              }
+              if (optimize) {
+                  Optimize msp = new Optimize(instance, -1);
+                  solver = msp.solver;
+                  prepare();
+                  msp.search();
+                  boolean found = solver.getMeasures().getSolutionCount() > 0;
+                  if (!found && !solver.hasReachedLimit()) {
+                      status = "infeasible";
+                  }
+                  else {
+                      // without a solution in time, the greedy schedule is the answer
+                      schedule = msp.schedule();
+                      objective = msp.objective();
+                      status = found && !solver.hasReachedLimit() ? "optimal" : "feasible";
+                  }
+              }
+              else {
+                  Solve msp = new Solve(instance);
+                  solver = msp.solver;
+                  prepare();
+                  if (msp.solve()) {
+                      schedule = msp.schedule();
+                      status = "feasible";
+                  }
+                  else {
+                      status = solver.hasReachedLimit() ? "unknown" : "infeasible";
+                  }
+              }
+              if (cancelled) status = "cancelled";
+          }
+          catch (RuntimeException e) {
+              System.err.println(id + ": " + e);
+          }
+          finally {
+              respond(status, objective, schedule);
+              done();
+          }
+      }
+
+      // the time limit, and the monitor that stops a cancelled search
+      private void prepare() {
+          solver.plugMonitor(this);
+          SMF.limitTime(solver, limit);
+      }
+
+      // no longer queued or running, wake up the client's connection if it waits for its requests
+      void done() {
+          jobsOf(out).remove(id);
+          synchronized (out) {
+              out.notifyAll();
+          }
+      }
+
+      public void beforeOpenNode() {
+          if (cancelled) solver.getSearchLoop().reachLimit();
+      }
+
+      public void afterOpenNode() {}
+
+      void respond(String status, int objective, int[] schedule) {
+          StringBuilder s = new StringBuilder();
+          s.append("RESULT ").append(id).append(' ').append(status).append(' ').append(objective)
+           .append(' ').append((System.nanoTime() - received) / 1000000).append('\n');
+          if (schedule != null) {
+              for (int i = 0; i < schedule.length; i++) {
+                  s.append(i).append(' ').append(schedule[i]).append('\n');
+              }
+          }
+          if (solver != null) {
+              s.append("nodes: ").append(solver.getMeasures().getNodeCount())
+               .append("   cpu: ").append(solver.getMeasures().getTimeCount()).append('\n');
+          }
+          s.append("END");
+          send(out, s.toString());
+      }
+  }
+
+  Server() {}
+
+  void start() {
+      pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                                    new ArrayBlockingQueue<Runnable>(queue));
+  }
+
+  // answers to one client are written whole, one at a time
+  static void send(PrintWriter out, String answer) {
+      synchronized (out) {
+          out.println(answer);
+          out.flush();
+      }
+  }
+
+  // the requests of the client writing to out that are queued or running, by id
+  Map<String, Job> jobsOf(PrintWriter out) {
+      return jobs.computeIfAbsent(out, o -> new ConcurrentHashMap<String, Job>());
+  }
+
+  // read and answer the requests of one client, until QUIT or the end of its input
+  void serve(BufferedReader in, PrintWriter out) throws IOException {
+      try {
+          read(in, out);
+          // answer the requests already taken before the connection is closed
+          synchronized (out) {
+              while (!jobsOf(out).isEmpty()) {
+                  try {
+                      out.wait();
+                  }
+                  catch (InterruptedException e) {
+                      return;
+                  }
+              }
+          }
+      }
+      finally {
+          jobs.remove(out);
+      }
+  }
+
+  private void read(BufferedReader in, PrintWriter out) throws IOException {
+      String line;
+      while ((line = in.readLine()) != null) {
+          String[] tokens = line.trim().split("\\s+");
+          String command = tokens[0].toUpperCase();
+          if (command.isEmpty()) continue;
+          if (command.equals("QUIT")) return;
+          if (command.equals("PING")) {
+              send(out, "PONG");
+          }
+          else if (command.equals("CANCEL") && tokens.length == 2) {
+              cancel(tokens[1], out);
+          }
+          else if ((command.equals("SOLVE") || command.equals("OPTIMIZE")) && tokens.length >= 3) {
+              String id = tokens[1];
+              try {
+                  Job job = new Job();
+                  job.id = id;
+                  job.optimize = command.equals("OPTIMIZE");
+                  job.limit = tokens.length > 3 ? Integer.parseInt(tokens[3]) : limit;
+                  job.out = out;
+                  job.instance = tokens[2].equals("-") ? new InstanceReader().parseText(inline(in))
+                                                       : InstanceReader.read(tokens[2]);
+                  submit(job);
+              }
+              catch (IOException | RuntimeException e) {
+                  send(out, "ERROR " + id + " " + e.getMessage());
+              }
+          }
+          else {
+              send(out, "ERROR - unknown request: " + line);
+          }
+      }
+  }
+
+  // the lines of an inline instance, up to a line END
+  private static String inline(BufferedReader in) throws IOException {
+      StringBuilder text = new StringBuilder();
+      String line;
+      while ((line = in.readLine()) != null && !line.trim().equals("END")) {
+          text.append(line).append('\n');
+      }
+      return text.toString();
+  }
+
+  void submit(Job job) {
+      if (jobsOf(job.out).putIfAbsent(job.id, job) != null) {
+          send(job.out, "ERROR " + job.id + " a request with this id is already running");
+          return;
+      }
+      try {
+          pool.execute(job);
+      }
+      catch (RejectedExecutionException e) {
+          jobsOf(job.out).remove(job.id);
+          send(job.out, "BUSY " + job.id);
+      }
+  }
+
+  void cancel(String id, PrintWriter out) {
+      Job job = jobsOf(out).get(id);
+      if (job == null || job.out != out) { // only the client that sent a request may cancel it
+          send(out, "ERROR " + id + " no such request");
+          return;
+      }
+      job.cancelled = true;
+      if (pool.remove(job)) { // still queued: it will never run, so answer now
+          job.respond("cancelled", -1, null);
+          job.done();
+      }
+  }
+
+  // solve an instance a few times, so that the JIT has compiled the solver before the first request
+  void warmup(String fname, int rounds) throws IOException {
+      Instance instance = InstanceReader.read(fname);
+      for (int i = 0; i < rounds; i++) {
+          new Solve(instance).solve();
+          Optimize msp = new Optimize(instance, -1);
+          SMF.limitTime(msp.solver, 100);
+          msp.search();
+      }
+  }
+
+  // accept clients on localhost, each one served by its own thread
+  void listen(int port) throws IOException {
+      try (ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+          System.err.println("listening on " + socket.getLocalSocketAddress());
+          while (true) {
+              final Socket client = socket.accept();
+              Thread t = new Thread(() -> {
+                  try (Socket s = client;
+                       BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                       PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+                      serve(in, out);
+                  }
+                  catch (IOException e) {
+                      System.err.println("client: " + e);
+                  }
+              });
+              t.setDaemon(true);
+              t.start();
+          }
+      }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Server server = new Server();
+    int port = -1;
+    String warmup = null;
+    for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("-port")) port = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-threads")) server.threads = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-queue")) server.queue = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-limit")) server.limit = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-warmup")) warmup = args[++i];
+        else {
+            System.out.println("usage: java Server [-port p] [-threads k] [-queue q] [-limit ms] [-warmup instance]");
+            return;
+        }
+    }
+    server.start();
+    if (warmup != null) server.warmup(warmup, 50);
+    if (port != -1) {
+        server.listen(port);
+        return;
+    }
+    PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII));
+    server.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII)), out);
+    server.pool.shutdown();
+  }
+}
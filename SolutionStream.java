@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.variables.IntVar;
+
+/*
+ * Search monitor that hands out every improving schedule as soon as it is found, so that
+ * a run that is killed or interrupted before the end of its time limit still leaves its
+ * best schedule behind. The schedule goes
+ *     - to a PrintStream (e.g. System.out), one record after the other,
+ *     - to a file, replaced atomically by each new record, so that it always holds one
+ *       complete schedule (the best one so far) and never a partly written one,
+ *     - or to a Listener, as an int[] of timeslots.
+ * A record is a comment line with the objective and the time since the search started,
+ * followed by the schedule in the usual "meeting timeslot" format:
+ *
+ *     # timeslots 42 time 2568
+ *     0 12
+ *     1 6
+ *     ...
+ *
+ *     java Optimize rProblems/40-10-20-9-00.txt 10 -stream -
+ *     java Optimize rProblems/40-10-20-9-00.txt 10 -stream best.txt
+ *
+ * Optimize streams its own search only, and refuses -stream with -lns, -decompose,
+ * -portfolio and -dichotomy.
+ */
+
+public class SolutionStream implements IMonitorSolution {
+
+  /*
+   * Receives each improving schedule
+   */
+  interface Listener {
+      void solution(int[] schedule, int objective, long millis);
+  }
+
+  IntVar[] meeting;
+  IntVar objective; // the variable minimised, null for a satisfaction search
+  PrintStream out; // where records are printed, or null
+  Path file; // file replaced by each record, or null
+  Listener listener; // or null
+  long start = System.nanoTime();
+  int best = Integer.MAX_VALUE; // objective of the last schedule handed out
+  int count = 0; // schedules handed out
+
+  SolutionStream(Solver solver, IntVar[] meeting, IntVar objective) {
+      this.meeting = meeting;
+      this.objective = objective;
+      solver.plugMonitor(this);
+  }
+
+  // stream to standard output if fname is "-", to a file otherwise
+  static SolutionStream to(String fname, Solver solver, IntVar[] meeting, IntVar objective) {
+      SolutionStream stream = new SolutionStream(solver, meeting, objective);
+      if (fname.equals("-")) stream.out = System.out;
+      else stream.file = Paths.get(fname);
+      return stream;
+  }
+
+  public void onSolution() {
+      int value = objective == null ? 0 : objective.getValue();
+      if (objective != null && value >= best) return;
+      best = value;
+      count++;
+      long millis = (System.nanoTime() - start) / 1000000;
+      int[] schedule = new int[meeting.length];
+      for (int i = 0; i < meeting.length; i++) {
+          schedule[i] = meeting[i].getValue();
+      }
+      if (listener != null) listener.solution(schedule, value, millis);
+      if (out == null && file == null) return;
+      String record = record(schedule, objective == null ? -1 : value, millis);
+      if (out != null) {
+          out.print(record);
+          out.flush();
+      }
+      if (file != null) {
+          try {
+              writeAtomically(file, record);
+          }
+          catch (IOException e) {
+              throw new UncheckedIOException(e);
+          }
+      }
+  }
+
+  static String record(int[] schedule, int objective, long millis) {
+      StringBuilder s = new StringBuilder();
+      s.append("# timeslots ").append(objective).append(" time ").append(millis).append('\n');
+      for (int i = 0; i < schedule.length; i++) {
+          s.append(i).append(' ').append(schedule[i]).append('\n');
+      }
+      return s.toString();
+  }
+
+  // replace the content of file: write a temporary file next to it, then rename it over file
+  static void writeAtomically(Path file, String content) throws IOException {
+      Path dir = file.toAbsolutePath().getParent();
+      Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+      try {
+          Files.write(tmp, content.getBytes(StandardCharsets.UTF_8));
+          Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      }
+      finally {
+          Files.deleteIfExists(tmp);
+      }
+  }
+}
@@ -1,6 +1,5 @@
-import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.PrintStream;
 import java.util.Arrays;
 
 import org.chocosolver.solver.*;
@@ -21,8 +20,11 @@ public class Solve {
   int nMeetings; // number of meetings to be scheduled
   int mAgents; // the number of agents
   int timeslots; // timeslots available
-  int[][] attendance; // container for the first matrix of the input file (each agent and his meetings attendance)
-  int[][] distance; // container for the second matrix of the input file (distance between meetings)
+  ConflictGraph graph; // which meetings cannot occur in parallel
+  Presolve presolve; // meeting windows and the agents whose constraints are posted
+  Instance instance;
+  Cache cache; // where results are looked up and recorded, null for none
+  int[] cached; // the schedule, if it was answered from the cache
 
   /*
    * IntVar that contains all meetings (of length nMeetings). The value of meeting[i]
@@ -33,95 +35,122 @@ public class Solve {
     
 
   Solve(String fname) throws IOException {
-    try (Scanner sc = new Scanner(new File(fname))) {
+      this(InstanceReader.read(fname));
+  }
 
+  Solve(Instance instance) {
       /* process input */
-      nMeetings = sc.nextInt();
-      mAgents = sc.nextInt();
-      timeslots = sc.nextInt();
-
-      attendance = new int[mAgents][nMeetings]; // this is only needed to compute which meetings can be in parallel
-      distance = new int[nMeetings][nMeetings]; // this is used to apply the travel contraints
-
-      /* construct attendance matrix */
-      for (int i = 0; i < mAgents; i++) {
-          int n = 0;
-          sc.next();
-          for (int j = 0; j < nMeetings; j++) {
-		      attendance[i][j] = sc.nextInt();
-          }
-      }    
-
-      /* construct distance matrix */
-      for (int i = 0; i < nMeetings; i++) {
-          sc.next();
-          for (int j = 0; j < nMeetings; j++) {
-              distance[i][j] = sc.nextInt();
-          }
-      }
+      this.instance = instance;
+      nMeetings = instance.nMeetings;
+      mAgents = instance.mAgents;
+      timeslots = instance.timeslots;
 
       solver = new Solver("meeting scheduling problem"); // create an instance of Solver
 
-      // value of meeting[i] is the timeslot in which meeting i occurs
-      meeting = VF.enumeratedArray("all meetings", nMeetings, 0, timeslots - 1, solver);
-
-      // constraint that some meetings cannot be in parallel
-      for (int m1 = 0; m1 < nMeetings; m1 ++) {
-          for (int m2 = m1 + 1; m2 < nMeetings; m2++) {
-              boolean canbeparallel = canBeParallel(m1,m2);
-              if(!canbeparallel) {
-                  /*
-                   * for each two meetings that cannot occur in parallel, make sure that their
-                   * distance is less than the difference of their timeslots
-                   * i.e.: |meeting[m1] - meeting[m2]| > distance[m1][m2]
-                   * By doing some calculations, this is equivalent to:
-                   *     meeting[m1] - meeting[m2] > distance[m1][m2]
-                   *                      OR
-                   *     meeting[m2] - meeting[m1] > distance[m1][m2]
-                   */
-                  Constraint eq1 = ICF.arithm(meeting[m1],"-",meeting[m2],">",distance[m1][m2]);
-                  Constraint eq2 = ICF.arithm(meeting[m2],"-",meeting[m1],">",distance[m1][m2]);
-
-                  solver.post(LCF.or(eq1,eq2));
-              }
-          }
+      graph = new ConflictGraph(instance);
+
+      // fix unattended meetings, drop implied agent constraints and narrow the windows
+      presolve = new Presolve(instance, graph, timeslots - 1);
+      if (Presolve.enabled) presolve.run();
+
+      // value of meeting[i] is the timeslot in which meeting i occurs, within its window
+      meeting = presolve.variables(solver);
+
+      /*
+       * for each two meetings that cannot occur in parallel, make sure that their
+       * distance is less than the difference of their timeslots
+       * i.e.: |meeting[m1] - meeting[m2]| > distance[m1][m2]
+       * Two meetings cannot occur in parallel iff some agent attends both of them,
+       * so this is posted as one constraint over the meetings of each agent (but for
+       * the agents presolve found implied by another).
+       */
+      presolve.post(solver, meeting, null);
+
+      // order interchangeable meetings, and one pair of meetings against time reversal
+      if (Symmetry.enabled) {
+          new Symmetry(instance, graph).post(solver, meeting);
       }
-    }
-  }
 
-  /* Checks whether meeting m1 and meeting m2 can occur in parallel
-   *     if yes: returns true
-   *     if no: returns false 
-   * meetings m1 and m2 can occur in parallel iff there does not exist any agent that has to
-   * attend both of them.
-   */
-  boolean canBeParallel(int m1, int m2) {
-      boolean notBothAttended = true;
-      for (int  i = 0; i < mAgents; i++) {
-          if(attendance[i][m1] == 1 && attendance[i][m2] == 1) {
-              return false;
-          }
+      // the agent calendar view, channelled to meeting[]
+      if (AgentCalendar.enabled) {
+          new AgentCalendar(solver, meeting, instance, graph, timeslots - 1);
       }
-      return notBothAttended;
-  } 
+
+      // the search chosen on the command line, Choco's default otherwise
+      if (Strategies.selected != null) use(Strategies.selected);
+  }
+
+  // search with the given strategy
+  void use(Strategies strategies) {
+      strategies.apply(solver, meeting, null, instance, graph, null);
+  }
 
   boolean solve() {
-    return solver.findSolution();
+    if (cache != null) {
+        // a cached schedule that fits in the timeslots, or a lower bound that does not
+        Cache.Entry entry = cache.get(instance);
+        if (entry != null && entry.schedule != null && entry.makespan < timeslots
+                && new Validator(instance, graph).check(entry.schedule)) {
+            cached = entry.schedule;
+            return true;
+        }
+        if (entry != null && entry.lb >= timeslots) return false;
+    }
+    boolean found = solver.findSolution();
+    if (cache != null && (found || !solver.hasReachedLimit())) {
+        try {
+            // no schedule in [0, timeslots) means that every schedule ends at timeslots or later
+            cache.put(instance, found ? new Cache.Entry(schedule(), 0, false) : new Cache.Entry(null, timeslots, false));
+        }
+        catch (IOException e) {
+            System.err.println("cache: " + e);
+        }
+    }
+    return found;
+  }
+
+  // the timeslot of every meeting, once solve() has returned true
+  int[] schedule() {
+    return cached != null ? cached : Decompose.values(meeting);
   }
 
   void result() {
+    result(System.out);
+  }
 
+  void result(PrintStream out) {
+    int[] schedule = schedule();
     for (int i = 0; i < nMeetings; i++) {
-        System.out.println(i + " " + meeting[i].getValue());
+        out.println(i + " " + schedule[i]);
     }
   }
 
   void stats() {
-    System.out.println("nodes: " + solver.getMeasures().getNodeCount() + "   cpu: " + solver.getMeasures().getTimeCount());
+    stats(System.out);
+  }
+
+  void stats(PrintStream out) {
+    if (cached != null) out.println("from cache");
+    out.println("nodes: " + solver.getMeasures().getNodeCount() + "   cpu: " + solver.getMeasures().getTimeCount());
   }
     
   public static void main(String[] args) throws IOException {
+    String trace = null; // file the search telemetry is written to
+    String cache = null; // cache directory
+    for (int i = 1; i < args.length; i++) {
+        if (args[i].equals("-trace")) trace = args[++i];
+        else if (args[i].equals("-cache")) cache = args[++i];
+        else if (args[i].equals("-nosym")) Symmetry.enabled = false;
+        else if (args[i].equals("-nopresolve")) Presolve.enabled = false;
+        else if (args[i].equals("-search")) Strategies.select().setVariables(args[++i]);
+        else if (args[i].equals("-value")) Strategies.select().setValues(args[++i]);
+        else if (args[i].equals("-restarts")) Strategies.select().setRestarts(args[++i]);
+        else if (args[i].equals("-calendar")) AgentCalendar.enabled = true;
+    }
     Solve msp = new Solve(args[0]);
+    if (msp.presolve.ran) System.err.println(msp.presolve);
+    if (trace != null) new Telemetry(msp.solver, null, trace);
+    if (cache != null) msp.cache = new Cache(cache);
     if (msp.solve())
         msp.result();
     else
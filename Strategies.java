@@ -0,0 +1,234 @@
+import java.util.IdentityHashMap;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.loop.monitors.SMF;
+import org.chocosolver.solver.search.strategy.IntStrategyFactory;
+import org.chocosolver.solver.search.strategy.selectors.IntValueSelector;
+import org.chocosolver.solver.search.strategy.selectors.VariableEvaluator;
+import org.chocosolver.solver.search.strategy.selectors.VariableSelectorWithTies;
+import org.chocosolver.solver.search.strategy.selectors.variables.FirstFail;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IntVar;
+
+/*
+ * Search strategies for Solve and Optimize: a variable ordering, a value selector and
+ * a restart policy, chosen by name.
+ *
+ * Variable orderings:
+ *     default       the model's own search (Choco's default for Solve, dom/wdeg for Optimize)
+ *     domOverWDeg, activity, impact, minDom, lexico, random    Choco's built-in heuristics
+ *     conflicts     most conflicting meetings first
+ *     travel        largest summed travel distance to the conflicting meetings first
+ *     busiest       meetings of the agent with the most meetings first
+ * the last three with the smallest domain first among meetings that tie.
+ *
+ * Value selectors (ignored by activity and impact, which choose their own values):
+ *     min           the smallest timeslot left
+ *     earliest      the earliest timeslot that is not within travel distance of a fixed
+ *                   conflicting meeting, and leaves every other conflicting meeting a
+ *                   timeslot (judged by the bounds of its domain)
+ *     warm          the timeslot of the greedy schedule (Optimize's warm start), else min
+ *     random        a random timeslot
+ * by default warm if there is a warm start, min otherwise.
+ *
+ * Restarts, on the number of fails, each with nogood recording (unless nogoods is off) so
+ * that the parts of the search space already explored are not explored again:
+ *     none, luby, geometric
+ *
+ *     java Optimize rProblems/40-10-20-9-00.txt 10 -search conflicts -value earliest -restarts luby
+ *
+ * Options given on the command line are kept in selected, and applied by Solve and
+ * Optimize (hence also by Batch and Bench) when they build their model; use() applies
+ * a strategy to a model that is already built.
+ */
+
+public class Strategies {
+
+  static final String[] VARIABLES = {"default", "domOverWDeg", "activity", "impact", "minDom", "lexico", "random",
+                                     "conflicts", "travel", "busiest"};
+  static final String[] VALUES = {"min", "earliest", "warm", "random"};
+  static final String[] RESTARTS = {"none", "luby", "geometric"};
+
+  static final int LUBY_SCALE = 2; // the n-th Luby run is cut after LUBY_SCALE * luby(n) fails
+  static final int GEOMETRIC_BASE = 10; // the n-th geometric run is cut after GEOMETRIC_BASE * GEOMETRIC_GROWTH^n fails
+  static final double GEOMETRIC_GROWTH = 1.2;
+
+  static Strategies selected = null; // chosen on the command line, null for the models' own search
+
+  String variables = "default";
+  String values = null; // null for the default, see above
+  String restarts = "none";
+  long seed = 0;
+  boolean nogoods = true; // record nogoods on restarts
+
+  Strategies() {}
+
+  Strategies(String variables, String values, String restarts) {
+      setVariables(variables);
+      if (values != null) setValues(values);
+      if (restarts != null) setRestarts(restarts);
+  }
+
+  // the strategy chosen on the command line, created by the first option that sets part of it
+  static Strategies select() {
+      if (selected == null) selected = new Strategies();
+      return selected;
+  }
+
+  Strategies setVariables(String name) {
+      variables = check(name, VARIABLES);
+      return this;
+  }
+
+  Strategies setValues(String name) {
+      values = check(name, VALUES);
+      return this;
+  }
+
+  Strategies setRestarts(String name) {
+      restarts = check(name, RESTARTS);
+      return this;
+  }
+
+  static String check(String name, String[] names) {
+      for (String n : names) {
+          if (n.equals(name)) return name;
+      }
+      throw new IllegalArgumentException("unknown strategy " + name + ", expected one of " + String.join(", ", names));
+  }
+
+  /*
+   * Set the search of a model over meeting[] (and the objective, null for none, which is
+   * fixed last to its smallest value). warmStart may be null.
+   */
+  void apply(Solver solver, IntVar[] meeting, IntVar objective, Instance instance, ConflictGraph graph, int[] warmStart) {
+      if (!variables.equals("default")) {
+          IntValueSelector value = valueSelector(meeting, instance, graph, warmStart);
+          AbstractStrategy<IntVar> strategy;
+          switch (variables) {
+              case "domOverWDeg": strategy = IntStrategyFactory.domOverWDeg(meeting, seed, value); break;
+              case "activity": strategy = IntStrategyFactory.activity(meeting, seed); break;
+              case "impact": strategy = IntStrategyFactory.impact(meeting, seed); break;
+              case "minDom": strategy = IntStrategyFactory.custom(IntStrategyFactory.minDomainSize_var_selector(), value, meeting); break;
+              case "lexico": strategy = IntStrategyFactory.custom(IntStrategyFactory.lexico_var_selector(), value, meeting); break;
+              case "random": strategy = IntStrategyFactory.custom(IntStrategyFactory.random_var_selector(seed), value, meeting); break;
+              default: strategy = IntStrategyFactory.custom(ordering(meeting, instance, graph), value, meeting); break;
+          }
+          if (objective != null) {
+              solver.set(strategy, IntStrategyFactory.lexico_LB(objective));
+          }
+          else {
+              solver.set(strategy);
+          }
+      }
+      switch (restarts) {
+          case "luby":
+              SMF.luby(solver, LUBY_SCALE, 2, new FailCounter(LUBY_SCALE), Integer.MAX_VALUE);
+              if (nogoods) SMF.nogoodRecordingFromRestarts(solver);
+              break;
+          case "geometric":
+              SMF.geometrical(solver, GEOMETRIC_BASE, GEOMETRIC_GROWTH, new FailCounter(GEOMETRIC_BASE), Integer.MAX_VALUE);
+              if (nogoods) SMF.nogoodRecordingFromRestarts(solver);
+              break;
+          default: break;
+      }
+  }
+
+  private IntValueSelector valueSelector(IntVar[] meeting, Instance instance, ConflictGraph graph, int[] warmStart) {
+      String v = values != null ? values : warmStart != null ? "warm" : "min";
+      switch (v) {
+          case "earliest": return new EarliestSlot(meeting, instance, graph);
+          case "warm": return warmStart != null ? new WarmStart(meeting, warmStart) : IntStrategyFactory.min_value_selector();
+          case "random": return IntStrategyFactory.random_value_selector(seed);
+          default: return IntStrategyFactory.min_value_selector();
+      }
+  }
+
+  // one of the domain specific orderings, with ties broken by domain size
+  @SuppressWarnings("unchecked")
+  private VariableSelectorWithTies<IntVar> ordering(IntVar[] meeting, Instance instance, ConflictGraph graph) {
+      int n = meeting.length;
+      double[] score = new double[n]; // the meeting with the largest score goes first
+      for (int m = 0; m < n; m++) {
+          switch (variables) {
+              case "conflicts":
+                  score[m] = graph.degree(m);
+                  break;
+              case "travel":
+                  for (int j : graph.neighbours(m)) score[m] += instance.distance(m, j);
+                  break;
+              default: // busiest
+                  for (int a : graph.agentsOf(m)) score[m] = Math.max(score[m], graph.meetingsOf(a).length);
+                  break;
+          }
+      }
+      return new VariableSelectorWithTies<IntVar>(new Score(meeting, score), new FirstFail());
+  }
+
+  @Override
+  public String toString() {
+      return "search: " + variables + (values == null ? "" : "/" + values) + (restarts.equals("none") ? "" : ", " + restarts + " restarts");
+  }
+
+  /*
+   * Fixed score of each meeting variable, the selector picks the smallest evaluation,
+   * so the evaluation is the opposite of the score
+   */
+  static class Score implements VariableEvaluator<IntVar> {
+      IdentityHashMap<IntVar, Integer> index = new IdentityHashMap<IntVar, Integer>();
+      double[] score;
+
+      Score(IntVar[] meeting, double[] score) {
+          for (int i = 0; i < meeting.length; i++) index.put(meeting[i], i);
+          this.score = score;
+      }
+
+      public double evaluate(IntVar var) {
+          return -score[index.get(var)];
+      }
+  }
+
+  /*
+   * Value selector: the earliest timeslot of a meeting that no fixed conflicting meeting
+   * rules out, and that leaves every conflicting meeting still to be fixed some timeslot
+   * outside its travel distance (by the bounds of its domain). The smallest timeslot if
+   * there is none.
+   */
+  static class EarliestSlot implements IntValueSelector {
+      IdentityHashMap<IntVar, Integer> index = new IdentityHashMap<IntVar, Integer>();
+      IntVar[] meeting;
+      Instance instance;
+      ConflictGraph graph;
+
+      EarliestSlot(IntVar[] meeting, Instance instance, ConflictGraph graph) {
+          for (int i = 0; i < meeting.length; i++) index.put(meeting[i], i);
+          this.meeting = meeting;
+          this.instance = instance;
+          this.graph = graph;
+      }
+
+      public int selectValue(IntVar var) {
+          int m = index.get(var);
+          int ub = var.getUB();
+          for (int t = var.getLB(); t <= ub; t = var.nextValue(t)) {
+              if (fits(m, t)) return t;
+          }
+          return var.getLB();
+      }
+
+      private boolean fits(int m, int t) {
+          for (int j : graph.neighbours(m)) {
+              IntVar v = meeting[j];
+              int d = instance.distance(m, j);
+              if (v.isInstantiated()) {
+                  if (Math.abs(v.getValue() - t) <= d) return false;
+              }
+              else if (v.getLB() >= t - d && v.getUB() <= t + d) {
+                  return false;
+              }
+          }
+          return true;
+      }
+  }
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.strategy.IntStrategyFactory;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+
+/*
+ * Model over a subset of the meetings, with every other meeting fixed at its timeslot
+ * in a given schedule. Only the free meetings become variables: the timeslots within
+ * travel distance of a fixed meeting are removed from the domains of the free meetings
+ * it conflicts with, and the travel constraints between free meetings are posted per
+ * agent. Building the model costs time proportional to the free meetings and their
+ * conflicts, not to the size of the instance.
+ */
+
+public class SubModel {
+
+  Instance instance;
+  ConflictGraph graph;
+  int[] schedule; // timeslots of all meetings, only the free ones are changed
+  int[] free; // the meetings that may move, in increasing order
+  int horizon; // last timeslot a free meeting may use
+
+  Solver solver;
+  IntVar[] meeting; // meeting[i] for every free meeting i, null for fixed meetings
+  boolean empty = false; // true iff some free meeting has no timeslot left
+
+  SubModel(Instance instance, ConflictGraph graph, int[] schedule, int[] free, int horizon) {
+      this.instance = instance;
+      this.graph = graph;
+      this.schedule = schedule;
+      this.free = free;
+      this.horizon = horizon;
+
+      solver = new Solver("meeting rescheduling");
+      meeting = new IntVar[instance.nMeetings];
+      boolean[] isFree = new boolean[instance.nMeetings];
+      for (int m : free) isFree[m] = true;
+
+      /* domains: [0, horizon] minus the timeslots too close to conflicting fixed meetings */
+      boolean[] allowed = new boolean[horizon + 1];
+      for (int m : free) {
+          Arrays.fill(allowed, true);
+          for (int j : graph.neighbours(m)) {
+              if (isFree[j]) continue;
+              int d = Travel.distance(instance, m, j);
+              for (int t = Math.max(0, schedule[j] - d); t <= Math.min(horizon, schedule[j] + d); t++) {
+                  allowed[t] = false;
+              }
+          }
+          int size = 0;
+          int[] values = new int[horizon + 1];
+          for (int t = 0; t <= horizon; t++) {
+              if (allowed[t]) values[size++] = t;
+          }
+          if (size == 0) {
+              empty = true;
+              return;
+          }
+          meeting[m] = VF.enumerated("meeting " + m, Arrays.copyOf(values, size), solver);
+      }
+
+      /* travel constraints between free meetings, per agent */
+      boolean[] posted = new boolean[instance.mAgents];
+      int[] subset = new int[free.length];
+      for (int m : free) {
+          for (int a : graph.agentsOf(m)) {
+              if (posted[a]) continue;
+              posted[a] = true;
+              int k = 0;
+              for (int j : graph.meetingsOf(a)) {
+                  if (isFree[j]) subset[k++] = j;
+              }
+              Travel.post(solver, meeting, instance, Arrays.copyOf(subset, k), "agent " + a);
+          }
+      }
+
+      IntVar[] vars = new IntVar[free.length];
+      for (int i = 0; i < free.length; i++) vars[i] = meeting[free[i]];
+      solver.set(IntStrategyFactory.domOverWDeg(vars, 0, new WarmStart(vars, current())));
+  }
+
+  // timeslots of the free meetings in the given schedule
+  private int[] current() {
+      int[] values = new int[free.length];
+      for (int i = 0; i < free.length; i++) values[i] = schedule[free[i]];
+      return values;
+  }
+
+  /*
+   * Search for timeslots of the free meetings. On success the schedule is updated and
+   * true is returned, otherwise the schedule is left as it was.
+   */
+  boolean solve() {
+      if (empty || !solver.findSolution()) return false;
+      for (int m : free) {
+          schedule[m] = meeting[m].getValue();
+      }
+      return true;
+  }
+}
@@ -0,0 +1,153 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.variables.IntVar;
+
+/*
+ * Symmetry breaking for the meeting scheduling problem.
+ *
+ * Two meetings are interchangeable if they have the same attendees and the same travel
+ * time to every other meeting they conflict with: swapping their timeslots turns any
+ * schedule into another one. The meetings of a class of interchangeable meetings are
+ * ordered by timeslot: strictly if they conflict (they share their attendees), loosely
+ * if nobody attends them.
+ *
+ * Reversing time, t -> horizon - t, also turns a schedule into another one, as the travel
+ * constraints only depend on the distance between timeslots. This is broken by ordering
+ * one pair of conflicting meetings that are interchangeable with no other meeting, so
+ * that both kinds of ordering can be met at once: reverse the schedule if the pair is the
+ * wrong way round, then sort the timeslots within each class.
+ *
+ * Symmetry breaking is on by default; Solve and Optimize switch it off with -nosym.
+ */
+
+public class Symmetry {
+
+  static boolean enabled = true; // post symmetry breaking constraints in Solve and Optimize
+
+  Instance instance;
+  ConflictGraph graph;
+  List<int[]> classes = new ArrayList<int[]>(); // classes of 2 or more interchangeable meetings, in increasing order
+  int[] reversal; // {p, q}: meeting p is before meeting q, null if no such pair
+
+  Symmetry(Instance instance, ConflictGraph graph) {
+      this.instance = instance;
+      this.graph = graph;
+
+      /* group the meetings by attendee set, then split the groups by travel times */
+      Map<String, List<Integer>> groups = new HashMap<String, List<Integer>>();
+      for (int m = 0; m < instance.nMeetings; m++) {
+          String key = Arrays.toString(graph.attendees[m]);
+          List<Integer> group = groups.get(key);
+          if (group == null) {
+              group = new ArrayList<Integer>();
+              groups.put(key, group);
+          }
+          group.add(m);
+      }
+      boolean[] single = new boolean[instance.nMeetings];
+      Arrays.fill(single, true);
+      for (List<Integer> group : groups.values()) {
+          List<List<Integer>> split = new ArrayList<List<Integer>>();
+          for (int m : group) {
+              List<Integer> into = null;
+              for (List<Integer> c : split) {
+                  if (interchangeable(c.get(0), m)) {
+                      into = c;
+                      break;
+                  }
+              }
+              if (into == null) {
+                  into = new ArrayList<Integer>();
+                  split.add(into);
+              }
+              into.add(m);
+          }
+          for (List<Integer> c : split) {
+              if (c.size() < 2) continue;
+              int[] members = new int[c.size()];
+              for (int i = 0; i < members.length; i++) {
+                  members[i] = c.get(i);
+                  single[members[i]] = false;
+              }
+              classes.add(members); // in increasing order, as the meetings were grouped in order
+          }
+      }
+
+      /* the most conflicting pair of meetings that are interchangeable with no other */
+      int p = -1;
+      for (int m = 0; m < instance.nMeetings; m++) {
+          if (single[m] && graph.degree(m) > 0 && (p == -1 || graph.degree(m) > graph.degree(p))) {
+              for (int q : graph.neighbours(m)) {
+                  if (single[q]) {
+                      p = m;
+                      break;
+                  }
+              }
+          }
+      }
+      if (p != -1) {
+          int q = -1;
+          for (int j : graph.neighbours(p)) {
+              if (single[j] && (q == -1 || graph.degree(j) > graph.degree(q))) q = j;
+          }
+          reversal = new int[]{p, q};
+      }
+  }
+
+  // true iff meetings m1 and m2, with the same attendees, have the same travel time to every conflicting meeting
+  boolean interchangeable(int m1, int m2) {
+      for (int k : graph.neighbours(m1)) {
+          if (k != m2 && Travel.distance(instance, m1, k) != Travel.distance(instance, m2, k)) return false;
+      }
+      return true;
+  }
+
+  // number of meetings in the classes of interchangeable meetings
+  int interchangeableMeetings() {
+      int k = 0;
+      for (int[] c : classes) k += c.length;
+      return k;
+  }
+
+  void post(Solver solver, IntVar[] meeting) {
+      for (int[] c : classes) {
+          String op = graph.isUnattended(c[0]) ? "<=" : "<";
+          for (int i = 0; i + 1 < c.length; i++) {
+              solver.post(ICF.arithm(meeting[c[i]], op, meeting[c[i + 1]]));
+          }
+      }
+      if (reversal != null) {
+          solver.post(ICF.arithm(meeting[reversal[0]], "<", meeting[reversal[1]]));
+      }
+  }
+
+  /*
+   * An equivalent schedule that meets the symmetry breaking constraints, all of whose
+   * timeslots are in [0, horizon] if the given one's are.
+   */
+  int[] canonical(int[] schedule, int horizon) {
+      int[] s = schedule.clone();
+      if (reversal != null && s[reversal[0]] > s[reversal[1]]) {
+          for (int i = 0; i < s.length; i++) s[i] = horizon - s[i];
+      }
+      for (int[] c : classes) {
+          int[] values = new int[c.length];
+          for (int i = 0; i < c.length; i++) values[i] = s[c[i]];
+          Arrays.sort(values);
+          for (int i = 0; i < c.length; i++) s[c[i]] = values[i];
+      }
+      return s;
+  }
+
+  @Override
+  public String toString() {
+      return "symmetry: " + classes.size() + " classes of " + interchangeableMeetings() + " interchangeable meetings"
+           + (reversal == null ? "" : ", time reversal broken by meeting " + reversal[0] + " < meeting " + reversal[1]);
+  }
+}
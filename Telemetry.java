@@ -0,0 +1,165 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.loop.monitors.*;
+import org.chocosolver.solver.variables.IntVar;
+
+/*
+ * Search monitor that traces a run of Solve or Optimize, for anytime profiles:
+ *     - every solution (Solve) or every improvement of the objective (Optimize), with
+ *       the time since the search started, and the nodes, fails and restarts so far,
+ *     - at the end, the time to the first solution, the time spent propagating (the
+ *       initial propagation and every branch taken down) and searching (all the rest),
+ *       the number of restarts and the peak heap usage.
+ *
+ *     java Optimize rProblems/40-10-20-9-00.txt 10 -trace trace.jsonl
+ *     java Solve rProblems/20-10-20-9-00.txt -trace trace.csv
+ *
+ * One line is written per event, as it happens, to a JSON lines file, or to a CSV file
+ * unless the file name ends with .jsonl. A run that is not traced has no monitor plugged
+ * in at all, so tracing costs nothing unless it is asked for. Optimize traces its own
+ * search only, and refuses -trace with -lns, -decompose, -portfolio and -dichotomy.
+ *
+ * The peak heap is that of the whole JVM, so with several searches running at once
+ * (Batch, Portfolio) it is shared by all of them.
+ */
+
+public class Telemetry implements IMonitorInitPropagation, IMonitorSolution, IMonitorDownBranch,
+                                  IMonitorUpBranch, IMonitorRestart, IMonitorClose {
+
+  static final String HEADER = "event,time,nodes,fails,restarts,objective,first,propagation,search,heap";
+
+  Solver solver;
+  IntVar objective; // the variable minimised, null for a satisfaction search
+  PrintWriter out;
+  boolean json; // JSON lines, otherwise CSV
+
+  long start; // System.nanoTime() at the start of the search
+  long branchStart = -1; // start of the branch being propagated, -1 if none
+  long propagation = 0; // nanoseconds spent propagating
+  long firstSolution = -1; // milliseconds to the first solution, -1 if none yet
+  long restarts = 0;
+  int best = Integer.MAX_VALUE; // best objective value so far
+  List<MemoryPoolMXBean> heap = new ArrayList<MemoryPoolMXBean>();
+
+  Telemetry(Solver solver, IntVar objective, String fname) throws IOException {
+      this.solver = solver;
+      this.objective = objective;
+      this.json = fname.endsWith(".jsonl");
+      this.out = new PrintWriter(new FileWriter(fname));
+      if (!json) out.println(HEADER);
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+          if (pool.getType() == MemoryType.HEAP) heap.add(pool);
+      }
+      solver.plugMonitor(this);
+  }
+
+  public void beforeInitialPropagation() {
+      for (MemoryPoolMXBean pool : heap) pool.resetPeakUsage();
+      start = System.nanoTime();
+      branchStart = start;
+  }
+
+  public void afterInitialPropagation() {
+      endBranch();
+  }
+
+  public void beforeDownLeftBranch() {
+      branchStart = System.nanoTime();
+  }
+
+  public void afterDownLeftBranch() {
+      endBranch();
+  }
+
+  public void beforeDownRightBranch() {
+      branchStart = System.nanoTime();
+  }
+
+  public void afterDownRightBranch() {
+      endBranch();
+  }
+
+  // a failed branch goes up without going through afterDown*Branch
+  public void beforeUpBranch() {
+      endBranch();
+  }
+
+  public void afterUpBranch() {}
+
+  private void endBranch() {
+      if (branchStart != -1) {
+          propagation += System.nanoTime() - branchStart;
+          branchStart = -1;
+      }
+  }
+
+  public void beforeRestart() {
+      restarts++;
+  }
+
+  public void afterRestart() {}
+
+  public void onSolution() {
+      long time = millis();
+      if (firstSolution == -1) firstSolution = time;
+      if (objective == null) {
+          event("solution", time, -1);
+      }
+      else if (objective.getValue() < best) {
+          best = objective.getValue();
+          event("improvement", time, best);
+      }
+  }
+
+  public void beforeClose() {}
+
+  public void afterClose() {
+      endBranch();
+      long time = millis();
+      long propagationMillis = propagation / 1000000;
+      long peak = 0;
+      for (MemoryPoolMXBean pool : heap) peak += pool.getPeakUsage().getUsed();
+      String end = solver.hasReachedLimit() ? "limit" : "end";
+      int value = best == Integer.MAX_VALUE ? -1 : best;
+      if (json) {
+          out.println("{\"event\":\"" + end + "\",\"time\":" + time + counters() + ",\"objective\":" + value
+                    + ",\"first\":" + firstSolution + ",\"propagation\":" + propagationMillis
+                    + ",\"search\":" + (time - propagationMillis) + ",\"heap\":" + peak + "}");
+      }
+      else {
+          out.println(end + "," + time + counters() + "," + value + "," + firstSolution + ","
+                    + propagationMillis + "," + (time - propagationMillis) + "," + peak);
+      }
+      out.close();
+  }
+
+  private long millis() {
+      return (System.nanoTime() - start) / 1000000;
+  }
+
+  private void event(String event, long time, int value) {
+      if (json) {
+          out.println("{\"event\":\"" + event + "\",\"time\":" + time + counters() + ",\"objective\":" + value + "}");
+      }
+      else {
+          out.println(event + "," + time + counters() + "," + value + ",,,,");
+      }
+      out.flush();
+  }
+
+  // the search counters, as ",nodes,fails,restarts" in the format of the output
+  private String counters() {
+      long nodes = solver.getMeasures().getNodeCount();
+      long fails = solver.getMeasures().getFailCount();
+      if (json) return ",\"nodes\":" + nodes + ",\"fails\":" + fails + ",\"restarts\":" + restarts;
+      return "," + nodes + "," + fails + "," + restarts;
+  }
+}
@@ -0,0 +1,72 @@
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.variables.IntVar;
+
+/*
+ * Posts the travel constraints of the meeting scheduling problem.
+ *
+ * Two meetings cannot occur in parallel iff some agent attends both of them, so the
+ * constraints are posted per agent: one PropAgentSchedule over all the meetings of the
+ * agent, or a single PropTravel if the agent has only two meetings. This replaces one
+ * reified disjunction (two arithm constraints and their boolean variables) per pair.
+ * A pair shared by several agents may be left to one of them (see Presolve).
+ */
+
+public class Travel {
+
+  static void post(Solver solver, IntVar[] meeting, Instance instance, ConflictGraph graph) {
+      for (int a = 0; a < instance.mAgents; a++) {
+          post(solver, meeting, instance, graph.meetingsOf(a), "agent " + a);
+      }
+  }
+
+  // the travel constraints between all pairs of the given meetings
+  static void post(Solver solver, IntVar[] meeting, Instance instance, int[] meetings, String name) {
+      post(solver, meeting, instance, meetings, null, name);
+  }
+
+  /*
+   * The travel constraints of the given meetings, filtering only the pairs i, j with
+   * owned[i][j] (null for all of them); the others are still seen by edge finding.
+   */
+  static void post(Solver solver, IntVar[] meeting, Instance instance, int[] meetings, boolean[][] owned, String name) {
+      int k = meetings.length;
+      if (!posts(k, owned)) return;
+      if (k == 2) {
+          int d = distance(instance, meetings[0], meetings[1]);
+          solver.post(new Constraint(name, new PropTravel(meeting[meetings[0]], meeting[meetings[1]], d)));
+          return;
+      }
+      IntVar[] vars = new IntVar[k];
+      int[][] cost = new int[k][k];
+      for (int i = 0; i < k; i++) {
+          vars[i] = meeting[meetings[i]];
+          for (int j = 0; j < k; j++) {
+              cost[i][j] = distance(instance, meetings[i], meetings[j]) + 1;
+          }
+      }
+      solver.post(new Constraint(name, new PropAgentSchedule(vars, cost, owned)));
+  }
+
+  // true iff a constraint is posted for k meetings with the given owned pairs: some pair is filtered, or edge finding is left
+  static boolean posts(int k, boolean[][] owned) {
+      if (k < 2) return false;
+      return owned == null || count(owned) > 0 || (k > 2 && k <= PropAgentSchedule.EDGE_FINDING_SIZE);
+  }
+
+  // number of pairs i < j with owned[i][j]
+  static int count(boolean[][] owned) {
+      int pairs = 0;
+      for (int i = 0; i < owned.length; i++) {
+          for (int j = i + 1; j < owned.length; j++) {
+              if (owned[i][j]) pairs++;
+          }
+      }
+      return pairs;
+  }
+
+  // travel distance between meetings m1 and m2, as read from the upper triangle of the matrix
+  static int distance(MeetingData data, int m1, int m2) {
+      return data.distance(m1, m2);
+  }
+}
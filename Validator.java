@@ -0,0 +1,171 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Checks schedules of the meeting scheduling problem, from the command line or as a library.
+ *
+ *     java Validator rProblems/10-5-30-2-00.txt rProblems/solve-10-5-30-2-00.txt
+ *     java Validator rProblems/100-50-10-9-03.txt solution.txt -nowindow
+ *     java Validator -batch rProblems rSolutions
+ *
+ * A schedule is a list of "meeting timeslot" lines, every other line (stats, "false", ...)
+ * is ignored. Unlike Validate, every violation is reported, not only the first one:
+ *     - a meeting that has no timeslot, or more than one,
+ *     - a meeting outside the window [0, timeslots), unless the window is not checked
+ *       (Optimize may use more timeslots than the instance allows),
+ *     - two conflicting meetings closer than the travel time between them.
+ * Only the conflicting pairs of the conflict graph are looked at, so a check costs time
+ * proportional to the number of conflicts rather than to n^2 * m.
+ *
+ * In batch mode each file of the solutions directory is checked against the instance
+ * of the same name in the instances directory (Batch writes its solutions this way).
+ */
+
+public class Validator {
+
+  Instance instance;
+  ConflictGraph graph;
+  boolean window = true; // check that every meeting is in [0, timeslots)
+  List<String> violations = new ArrayList<String>(); // violations found by the last check
+
+  Validator(Instance instance) {
+      this(instance, new ConflictGraph(instance));
+  }
+
+  Validator(Instance instance, ConflictGraph graph) {
+      this.instance = instance;
+      this.graph = graph;
+  }
+
+  // check the schedule in a file, true iff it is a valid schedule
+  boolean check(String fname) throws IOException {
+      violations.clear();
+      int[] schedule = read(fname);
+      if (schedule == null) {
+          violations.add("no schedule");
+          return false;
+      }
+      return checkSchedule(schedule);
+  }
+
+  // check schedule[i], the timeslot of meeting i (-1 if it has none), true iff it is a valid schedule
+  boolean check(int[] schedule) {
+      violations.clear();
+      return checkSchedule(schedule);
+  }
+
+  private boolean checkSchedule(int[] schedule) {
+      int n = instance.nMeetings;
+      if (schedule.length < n) {
+          violations.add("schedule has " + schedule.length + " meetings, instance has " + n);
+          return false;
+      }
+      for (int m = 0; m < n; m++) {
+          if (schedule[m] == -1) {
+              violations.add("meeting " + m + " has no timeslot");
+          }
+          else if (schedule[m] < 0 || (window && schedule[m] >= instance.timeslots)) {
+              violations.add("meeting " + m + " at timeslot " + schedule[m]
+                           + " is outside [0, " + instance.timeslots + ")");
+          }
+      }
+      for (int m1 = 0; m1 < n; m1++) {
+          if (schedule[m1] == -1) continue;
+          for (int m2 : graph.neighbours(m1)) {
+              if (m2 <= m1 || schedule[m2] == -1) continue;
+              int d = Travel.distance(instance, m1, m2);
+              if (Math.abs(schedule[m1] - schedule[m2]) <= d) {
+                  violations.add("meetings " + m1 + " and " + m2 + " (agent " + graph.sharedAgent(m1, m2)
+                               + ") at timeslots " + schedule[m1] + " and " + schedule[m2]
+                               + " but travel takes " + d);
+              }
+          }
+      }
+      return violations.isEmpty();
+  }
+
+  /*
+   * Read the "meeting timeslot" lines of a schedule file. Meetings without a line get -1,
+   * unknown and repeated meetings are recorded as violations.
+   * Returns null if the file contains no schedule at all (e.g. Solve found none).
+   */
+  int[] read(String fname) throws IOException {
+      int[] schedule = new int[instance.nMeetings];
+      Arrays.fill(schedule, -1);
+      boolean any = false;
+      try (BufferedReader in = new BufferedReader(new FileReader(fname))) {
+          String line;
+          while ((line = in.readLine()) != null) {
+              String[] tokens = line.trim().split("\\s+");
+              if (tokens.length != 2 || !isInt(tokens[0]) || !isInt(tokens[1])) continue;
+              any = true;
+              int m = Integer.parseInt(tokens[0]);
+              int t = Integer.parseInt(tokens[1]);
+              if (m < 0 || m >= instance.nMeetings) {
+                  violations.add("unknown meeting " + m);
+              }
+              else if (schedule[m] != -1) {
+                  violations.add("meeting " + m + " scheduled twice");
+              }
+              else {
+                  schedule[m] = t;
+              }
+          }
+      }
+      return any ? schedule : null;
+  }
+
+  private static boolean isInt(String s) {
+      int start = s.startsWith("-") ? 1 : 0;
+      if (s.length() == start || s.length() > 10) return false;
+      for (int i = start; i < s.length(); i++) {
+          if (!Character.isDigit(s.charAt(i))) return false;
+      }
+      return true;
+  }
+
+  // validate every solution file of a directory, returns the number of invalid schedules
+  static int batch(String instances, String solutions, boolean window) throws IOException {
+      int invalid = 0;
+      for (Path solution : Batch.listInstances(solutions)) {
+          String name = solution.getFileName().toString();
+          File instance = new File(instances, name);
+          if (!instance.isFile()) continue; // summary files, solutions of other instances
+          Validator v = new Validator(InstanceReader.read(instance.getPath()));
+          v.window = window;
+          boolean valid = v.check(solution.toString());
+          boolean none = !valid && v.violations.size() == 1 && v.violations.get(0).equals("no schedule");
+          System.out.println(name + " " + (none ? "none" : valid));
+          if (!valid && !none) {
+              invalid++;
+              for (String s : v.violations) System.out.println("    " + s);
+          }
+      }
+      return invalid;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || (args[0].equals("-batch") && args.length < 3)) {
+        System.out.println("usage: java Validator <instance> <schedule> [-nowindow]");
+        System.out.println("       java Validator -batch <instances> <solutions> [-nowindow]");
+        return;
+    }
+    boolean window = !args[args.length - 1].equals("-nowindow");
+    if (args[0].equals("-batch")) {
+        int invalid = batch(args[1], args[2], window);
+        System.exit(invalid == 0 ? 0 : 1);
+    }
+    Validator v = new Validator(InstanceReader.read(args[0]));
+    v.window = window;
+    boolean valid = v.check(args[1]);
+    for (String s : v.violations) System.out.println(s);
+    System.out.println(valid);
+    System.exit(valid ? 0 : 1);
+  }
+}
@@ -0,0 +1,30 @@
+import java.util.IdentityHashMap;
+
+import org.chocosolver.solver.search.strategy.selectors.IntValueSelector;
+import org.chocosolver.solver.variables.IntVar;
+
+/*
+ * Value selector that follows a known schedule: each meeting variable is first tried
+ * with its timeslot in the given schedule, and with the smallest value of its domain
+ * once that timeslot has been removed. Used to hand a heuristic solution to the search
+ * as a warm start.
+ */
+
+public class WarmStart implements IntValueSelector {
+
+  IdentityHashMap<IntVar, Integer> hint = new IdentityHashMap<IntVar, Integer>();
+
+  WarmStart(IntVar[] meeting, int[] schedule) {
+      for (int i = 0; i < meeting.length; i++) {
+          hint.put(meeting[i], schedule[i]);
+      }
+  }
+
+  public int selectValue(IntVar var) {
+      Integer value = hint.get(var);
+      if (value != null && var.contains(value)) {
+          return value;
+      }
+      return var.getLB();
+  }
+}
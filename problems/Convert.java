@@ -1,77 +1,82 @@
 import java.util.*;
 import java.io.*;
 
+/*
+ * Converts the cspLib dump allProblems.txt into one instance file per problem
+ * (problem01.txt, problem02.txt, ...), in a single streaming pass: the agents'
+ * meetings and the distance rows are written out as they are read, so neither
+ * the attendance nor the distance matrix is ever held in memory.
+ *
+ *     java Convert allProblems.txt [outDir]
+ */
+
 public class Convert {
 
-    static int[][] distance; // travel distance between meetings
-    static boolean[][] X; // X[i][j] <-> agent_i is at meeting_j
     static int n,m,mtgPerAgent,domSize;
-    static Scanner sc;
-
-    static void skip(int k){
-	for (int i=0;i<k;i++) sc.next();
-    }
+    static BufferedInputStream in;
+    static PrintWriter out;
 
-    static int intSkip(int k){
-	skip(k);
-	return sc.nextInt();
+    // next whitespace separated token, null at the end of the input
+    static String next() throws IOException {
+	int c = in.read();
+	while (c != -1 && Character.isWhitespace(c)) c = in.read();
+	if (c == -1) return null;
+	StringBuilder token = new StringBuilder();
+	while (c != -1 && !Character.isWhitespace(c)){
+	    token.append((char) c);
+	    c = in.read();
+	}
+	return token.toString();
     }
 
-    static boolean intersects(int mtg_j,int mtg_k){	
-	for (int i=0;i<m;i++)
-	    if (X[i][mtg_j] && X[i][mtg_k]) return true;
-	return false;
+    static void skip(int k) throws IOException {
+	for (int i=0;i<k;i++) next();
     }
 
-    static void writeMSP(String fname) throws IOException {
-	PrintWriter out = new PrintWriter(new FileWriter(fname));
-	out.println(n +" "+ m +" "+ domSize);
-	out.println();
-	for (int i=0;i<m;i++){
-	    out.print(i +":");
-	    for (int j=0;j<n;j++) if (X[i][j]) out.print(" 1"); else out.print(" 0");
-	    out.println();
-	}
-	out.println();
-	for (int i=0;i<n;i++){
-	    out.print(i +":");
-	    for (int j=0;j<n;j++) out.print(" "+ distance[i][j]);
-	    out.println();
-	}
-	out.close();
+    static int intSkip(int k) throws IOException {
+	skip(k);
+	return Integer.parseInt(next());
     }
 
-    static void readMSP(String fname) throws IOException {
-	sc = new Scanner(new File(fname));
+    static void convert(String outDir) throws IOException {
 	int problemNo = 1;
-	while (sc.hasNext()){
-	    //System.out.println(sc.next() +" "+ sc.next());
-	    skip(2);
+	String token;
+	while ((token = next()) != null){
+	    skip(1); // "Instance #k:"
 	    n = intSkip(2);
 	    m = intSkip(2);
-	    X = new boolean[m][n];
 	    mtgPerAgent = intSkip(2);
 	    domSize = intSkip(8);
 	    skip(2);
+	    out = new PrintWriter(new BufferedWriter(new FileWriter(new File(outDir, String.format("problem%02d.txt", problemNo)))));
+	    out.println(n +" "+ m +" "+ domSize);
+	    out.println();
+	    boolean[] row = new boolean[n];
 	    for (int i=0;i<m;i++){
 		skip(2);
-		for (int j=0;j<mtgPerAgent;j++) X[i][sc.nextInt()] = true;
-	    }   
+		Arrays.fill(row, false);
+		for (int j=0;j<mtgPerAgent;j++) row[Integer.parseInt(next())] = true;
+		out.print(i +":");
+		for (int j=0;j<n;j++) out.print(row[j] ? " 1" : " 0");
+		out.println();
+	    }
+	    out.println();
 	    skip(3+n);
-	    distance = new int[n][n];
 	    for (int i=0;i<n;i++){
 		skip(1);
-		for (int j=0;j<n;j++) distance[i][j] = sc.nextInt();		
-	    } 
-	    skip(3);
-	    writeMSP("problem" + problemNo +".txt");
+		out.print(i +":");
+		for (int j=0;j<n;j++) out.print(" "+ next());
+		out.println();
+	    }
+	    out.close();
+	    skip(3); // "Estimated P1=... P2=..."
 	    problemNo++;
 	}
-	sc.close();
     }
 
     public static void main(String[] args)  throws IOException {
-
-	readMSP(args[0]);
+	in = new BufferedInputStream(new FileInputStream(args[0]), 1 << 16);
+	convert(args.length > 1 ? args[1] : ".");
+	in.close();
     }
 }